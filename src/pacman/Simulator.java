@@ -0,0 +1,391 @@
+package pacman;
+
+import pacman.board.BoardItem;
+import pacman.board.PacmanBoard;
+import pacman.game.GameReader;
+import pacman.game.PacmanGame;
+import pacman.hunter.Hunter;
+import pacman.util.Direction;
+import pacman.util.Position;
+import pacman.util.UnpackableException;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Entry point for running a PacMan game without a display, ticking it as fast
+ * as it will go to soak test maps and hunter behaviour. The hunter is steered
+ * by a script of key presses, by a simple bot or not at all. No JavaFX class
+ * is used, so it runs where there is no display.
+ */
+public class Simulator {
+    /**
+     * Number of ticks run when none are given on the command line.
+     */
+    public static final int DEFAULT_TICKS = 100000;
+
+    // Direction.values() copies the array on every call, so keep one
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final PacmanGame game;
+    // key presses by the number of ticks run before they are pressed
+    private final Map<Integer, List<String>> script = new HashMap<>();
+    // picks the bot's turns, or null when there is no bot
+    private Random bot;
+
+    /**
+     * Creates a simulator for a game, with no input until a script or bot is
+     * given.
+     * @param game to run
+     * @throws NullPointerException if game is null
+     */
+    public Simulator(PacmanGame game) throws NullPointerException {
+        if (game == null) {
+            throw new NullPointerException();
+        }
+        this.game = game;
+    }
+
+    /**
+     * Gets the game being run.
+     * @return the game
+     */
+    public PacmanGame getGame() {
+        return game;
+    }
+
+    /**
+     * Presses a key before the given tick, the same keys MainViewModel
+     * accepts while the game is not paused:
+     *      W, w    -   Changes pacman to face up.
+     *      A, a    -   Changes pacman to face left.
+     *      S, s    -   Changes pacman to face down.
+     *      D, d    -   Changes pacman to face right.
+     *      O, o    -   Activates the hunter's special ability for
+     *      Hunter.SPECIAL_DURATION.
+     * Keys pressed before the same tick are pressed in the order given.
+     * @param tick number of ticks run before the key is pressed, counted from
+     * the start of run(int)
+     * @param key to press
+     * @throws IllegalArgumentException if tick is negative or the key is not
+     * one of the above
+     * @throws NullPointerException if key is null
+     */
+    public void press(int tick, String key)
+            throws IllegalArgumentException, NullPointerException {
+        if (key == null) {
+            throw new NullPointerException();
+        } else if (tick < 0 || key.length() != 1
+                || "WASDO".indexOf(key.toUpperCase().charAt(0)) < 0) {
+            throw new IllegalArgumentException();
+        }
+        script.computeIfAbsent(tick, t -> new ArrayList<>())
+                .add(key.toUpperCase());
+    }
+
+    /**
+     * Reads a script of key presses, one "TICK KEY" pair per line, e.g.
+     * "120 W" presses W before the 121st tick (see press(int, String)).
+     * Blank lines and lines starting with a ';' are skipped.
+     * @param reader to read the script from
+     * @throws UnpackableException when a line is not a valid key press
+     * @throws IOException when unable to read from the reader
+     */
+    public void readScript(Reader reader)
+            throws UnpackableException, IOException {
+        BufferedReader br = new BufferedReader(reader);
+        for (String line = br.readLine(); line != null; line = br.readLine()) {
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == ';') {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2) {
+                throw new UnpackableException();
+            }
+            try {
+                press(Integer.parseInt(parts[0]), parts[1]);
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException is one too
+                throw new UnpackableException();
+            }
+        }
+    }
+
+    /**
+     * Lets a bot steer the hunter before every tick, after any key presses for
+     * that tick. The bot heads for a dot on a tile next to the hunter if there
+     * is one, otherwise it keeps going and picks a turn at random at each
+     * junction. It only turns back at a dead end.
+     * @param random to pick turns with, or null to turn the bot off
+     */
+    public void setBot(Random random) {
+        this.bot = random;
+    }
+
+    /**
+     * Ticks the game until it is over or the given number of ticks have been
+     * run, as fast as possible.
+     * @param ticks most ticks to run
+     * @return what happened during the run
+     * @throws IllegalArgumentException if ticks is negative
+     */
+    public Result run(int ticks) throws IllegalArgumentException {
+        if (ticks < 0) {
+            throw new IllegalArgumentException();
+        }
+        List<Integer> lives = new ArrayList<>();
+        int lifeStart = 0;
+        int livesLeft = game.getLives();
+        int ran = 0;
+        long start = System.nanoTime();
+        while (ran < ticks && game.getLives() > 0) {
+            List<String> keys = script.get(ran);
+            if (keys != null) {
+                for (String key : keys) {
+                    accept(key);
+                }
+            }
+            if (bot != null) {
+                steer();
+            }
+            game.tick();
+            ran++;
+            if (game.getLives() < livesLeft) {
+                // the hunter died this tick
+                lives.add(ran - lifeStart);
+                lifeStart = ran;
+                livesLeft = game.getLives();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        return new Result(ran, nanos, game.getScores().getScore(),
+                game.getLevel(), lives,
+                game.getLives() > 0 ? ran - lifeStart : -1);
+    }
+
+    /*
+     * Acts on a key the same as MainViewModel.accept(String).
+     */
+    private void accept(String key) {
+        Hunter hunter = game.getHunter();
+        switch (key) {
+            case "W":
+                hunter.setDirection(Direction.UP);
+                break;
+            case "A":
+                hunter.setDirection(Direction.LEFT);
+                break;
+            case "S":
+                hunter.setDirection(Direction.DOWN);
+                break;
+            case "D":
+                hunter.setDirection(Direction.RIGHT);
+                break;
+            case "O":
+                hunter.activateSpecial(Hunter.SPECIAL_DURATION);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /*
+     * Turns the hunter the way the bot would go from its tile.
+     */
+    private void steer() {
+        Hunter hunter = game.getHunter();
+        PacmanBoard board = game.getBoard();
+        int x = Position.unpackX(hunter.getPackedPosition());
+        int y = Position.unpackY(hunter.getPackedPosition());
+        Direction facing = hunter.getDirection();
+        int moves = board.getNeighbours(x, y);
+        int ahead = moves & ~facing.opposite().mask();
+        if (ahead == 0) {
+            // a dead end, or walled in which leaves the hunter where it is
+            ahead = moves;
+        }
+
+        // dots next to us first, then any way on
+        Direction[] choices = new Direction[DIRECTIONS.length];
+        int count = 0;
+        for (Direction d : DIRECTIONS) {
+            if ((ahead & d.mask()) == 0) {
+                continue;
+            }
+            BoardItem item = board.getEntry(x + d.getX(), y + d.getY());
+            if (item == BoardItem.DOT || item == BoardItem.BIG_DOT) {
+                choices[count++] = d;
+            }
+        }
+        if (count == 0) {
+            if ((ahead & facing.mask()) != 0 && Integer.bitCount(ahead) == 1) {
+                // a corridor, keep going
+                return;
+            }
+            for (Direction d : DIRECTIONS) {
+                if ((ahead & d.mask()) != 0) {
+                    choices[count++] = d;
+                }
+            }
+        }
+        if (count > 0) {
+            hunter.setDirection(choices[bot.nextInt(count)]);
+        }
+    }
+
+    /**
+     * What happened while a Simulator ran.
+     */
+    public static class Result {
+        private final int ticks;
+        private final long nanos;
+        private final int score;
+        private final int level;
+        private final List<Integer> lives;
+        private final int currentLife;
+
+        /*
+         * Creates a result, see the getters.
+         */
+        private Result(int ticks, long nanos, int score, int level,
+                List<Integer> lives, int currentLife) {
+            this.ticks = ticks;
+            this.nanos = nanos;
+            this.score = score;
+            this.level = level;
+            this.lives = Collections.unmodifiableList(lives);
+            this.currentLife = currentLife;
+        }
+
+        /**
+         * Gets the number of ticks run.
+         * @return the ticks run
+         */
+        public int getTicks() {
+            return ticks;
+        }
+
+        /**
+         * Gets how long the ticks took to run.
+         * @return the time taken in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Gets how fast the ticks were run.
+         * @return ticks run per second, 0 if no time was taken
+         */
+        public double getTicksPerSecond() {
+            return nanos == 0 ? 0 : ticks * 1e9 / nanos;
+        }
+
+        /**
+         * Gets the score at the end of the run.
+         * @return the final score
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Gets the level at the end of the run.
+         * @return the level reached
+         */
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * Gets how long each life lost during the run lasted, from the start
+         * of the run or the loss of the life before.
+         * @return the number of ticks of each life lost, in order
+         */
+        public List<Integer> getLives() {
+            return lives;
+        }
+
+        /**
+         * Gets how long the life the hunter is on at the end of the run has
+         * lasted so far.
+         * @return the number of ticks of the current life, or -1 if the game
+         * is over
+         */
+        public int getCurrentLife() {
+            return currentLife;
+        }
+
+        /**
+         * Checks if the game was over at the end of the run.
+         * @return true if there are no lives left
+         */
+        public boolean isGameOver() {
+            return currentLife < 0;
+        }
+
+        /**
+         * Represents the result as lines of "name: value".
+         * @return the result for printing
+         */
+        @Override
+        public String toString() {
+            return "ticks: " + ticks + System.lineSeparator()
+                    + "ticks per second: "
+                    + String.format("%.0f", getTicksPerSecond())
+                    + System.lineSeparator()
+                    + "score: " + score + System.lineSeparator()
+                    + "level: " + level + System.lineSeparator()
+                    + "lives lost after ticks: " + lives
+                    + System.lineSeparator()
+                    + (isGameOver() ? "game over"
+                    : "current life ticks: " + currentLife);
+        }
+    }
+
+    /**
+     * Runs a game without a display and prints the result.
+     *
+     * Arguments: [MAP FILENAME] [TICKS] [SCRIPT FILENAME | bot [SEED]]
+     * @param args from the command line.
+     */
+    public static void main(final String... args) {
+        if (args.length < 1 || args.length > 4) {
+            System.out.println("Usage: [MAP FILENAME] [TICKS]"
+                    + " [SCRIPT FILENAME | bot [SEED]]");
+            System.exit(1);
+        }
+        try {
+            PacmanGame game;
+            try (Reader reader = new BufferedReader(new FileReader(args[0]))) {
+                game = GameReader.read(reader);
+            }
+            Simulator simulator = new Simulator(game);
+            int ticks = args.length > 1 ? Integer.parseInt(args[1])
+                    : DEFAULT_TICKS;
+            if (args.length > 2 && args[2].equals("bot")) {
+                simulator.setBot(args.length > 3
+                        ? new Random(Long.parseLong(args[3])) : new Random());
+            } else if (args.length > 2) {
+                try (Reader reader =
+                        new BufferedReader(new FileReader(args[2]))) {
+                    simulator.readScript(reader);
+                }
+            }
+            System.out.println(simulator.run(ticks));
+        } catch (IOException | UnpackableException
+                | IllegalArgumentException e) {
+            System.err.println(e.toString());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package pacman.board;
+
+import java.util.Arrays;
+
+/**
+ * Stores the board as one BoardItem reference per tile, indexed [row][column].
+ * Snapshots share the rows, a row is copied the first time it is written to.
+ */
+class ArrayStorage implements BoardStorage {
+    private BoardItem[][] tiles;
+
+    // true once this storage has been snapshot or is a snapshot, the outer
+    // array is shared while spineShared and a row is shared until it is owned
+    private boolean copyOnWrite;
+    private boolean spineShared;
+    private boolean[] ownedRows;
+
+    /**
+     * Creates a storage of the given size with every tile set to NONE.
+     * @param width number of columns
+     * @param height number of rows
+     */
+    ArrayStorage(int width, int height) {
+        this.tiles = new BoardItem[height][width];
+        for (BoardItem[] row : tiles) {
+            Arrays.fill(row, BoardItem.NONE);
+        }
+    }
+
+    /*
+     * Creates a storage that owns the given rows.
+     */
+    private ArrayStorage(BoardItem[][] tiles) {
+        this.tiles = tiles;
+    }
+
+    @Override
+    public BoardItem get(int x, int y) {
+        return tiles[y][x];
+    }
+
+    @Override
+    public void set(int x, int y, BoardItem item) {
+        if (copyOnWrite) {
+            own(y);
+        }
+        tiles[y][x] = item;
+    }
+
+    /*
+     * Makes sure this storage has its own copy of the given row, and of the
+     * outer array holding it.
+     */
+    private void own(int row) {
+        if (spineShared) {
+            tiles = tiles.clone();
+            ownedRows = new boolean[tiles.length];
+            spineShared = false;
+        }
+        if (!ownedRows[row]) {
+            tiles[row] = tiles[row].clone();
+            ownedRows[row] = true;
+        }
+    }
+
+    @Override
+    public BoardStorage copy() {
+        BoardItem[][] copy = new BoardItem[tiles.length][];
+        for (int row = 0; row < tiles.length; row++) {
+            copy[row] = Arrays.copyOf(tiles[row], tiles[row].length);
+        }
+        return new ArrayStorage(copy);
+    }
+
+    @Override
+    public BoardStorage snapshot() {
+        // from now on neither side owns any of the rows
+        copyOnWrite = true;
+        spineShared = true;
+        ownedRows = null;
+        ArrayStorage snapshot = new ArrayStorage(tiles);
+        snapshot.copyOnWrite = true;
+        snapshot.spineShared = true;
+        return snapshot;
+    }
+
+    @Override
+    public StorageType getType() {
+        return StorageType.ARRAY;
+    }
+
+    @Override
+    public long footprint() {
+        // outer array of row references, then a header and a reference per tile
+        long width = tiles.length == 0 ? 0 : tiles[0].length;
+        long bytes = 16 + 4L * tiles.length;
+        bytes += tiles.length * (16 + 4 * width);
+        return bytes;
+    }
+}
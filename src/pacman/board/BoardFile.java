@@ -0,0 +1,99 @@
+package pacman.board;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes compiled board files, a binary form of a PacmanBoard that
+ * can be mapped into memory without being parsed or copied.
+ * The file is a 12 byte header of three big-endian ints: the magic number
+ * 0x504D4231 ("PMB1"), the width and the height. This is followed by one byte
+ * per tile, row by row, holding the ordinal of the BoardItem in that tile.
+ */
+public final class BoardFile {
+    private static final int MAGIC = 0x504D4231;
+    private static final int HEADER = 12;
+
+    private BoardFile() {
+    }
+
+    /**
+     * Writes a board to a compiled board file, replacing the file if it
+     * exists. The board is written a row at a time.
+     * @param board to write
+     * @param file to write the board to
+     * @throws IOException if the file cannot be written
+     * @throws NullPointerException if board or file is null
+     */
+    public static void write(PacmanBoard board, Path file) throws IOException {
+        if (board == null || file == null) {
+            throw new NullPointerException();
+        }
+        int width = board.getWidth();
+        int height = board.getHeight();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(width);
+            out.writeInt(height);
+            byte[] row = new byte[width];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = (byte) board.item(x, y).ordinal();
+                }
+                out.write(row);
+            }
+        }
+    }
+
+    /**
+     * Maps a compiled board file straight into memory as a
+     * StorageType.OFF_HEAP board. The tiles are not copied onto the heap,
+     * they are read once to find the dots and spawns. Changes to the board
+     * are never written back to the file. Use PacmanBoard.close() to let go
+     * of the mapping once the board is no longer needed.
+     * @param file compiled board file to map
+     * @return the board held in the file
+     * @throws IOException if the file cannot be read, or is not a valid
+     * compiled board file
+     * @throws NullPointerException if file is null
+     */
+    public static PacmanBoard map(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException();
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("not a compiled board file");
+                }
+            }
+            header.flip();
+            int magic = header.getInt();
+            int width = header.getInt();
+            int height = header.getInt();
+            if (magic != MAGIC || width <= 0 || height <= 0
+                    || (long) width * height > Integer.MAX_VALUE
+                    || channel.size() != HEADER + (long) width * height) {
+                throw new IOException("not a compiled board file");
+            }
+            // read-only, the board copies the tiles before its first change
+            ByteBuffer tiles = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER, (long) width * height);
+            try {
+                return new PacmanBoard(new OffHeapStorage(width, tiles),
+                        width, height);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("not a compiled board file", e);
+            }
+        }
+    }
+}
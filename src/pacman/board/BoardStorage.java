@@ -0,0 +1,61 @@
+package pacman.board;
+
+/**
+ * Backing store for the tiles of a PacmanBoard. Implementations do no bounds
+ * or null checking, this is done by PacmanBoard before calling in.
+ */
+interface BoardStorage {
+
+    /**
+     * Gets the item stored at the given coordinates.
+     * @param x column of the tile
+     * @param y row of the tile
+     * @return the item at (x, y)
+     */
+    BoardItem get(int x, int y);
+
+    /**
+     * Stores an item at the given coordinates.
+     * @param x column of the tile
+     * @param y row of the tile
+     * @param item to store
+     */
+    void set(int x, int y, BoardItem item);
+
+    /**
+     * Creates a deep copy of this storage, later changes to either copy are
+     * not seen by the other.
+     * @return a copy of this storage
+     */
+    BoardStorage copy();
+
+    /**
+     * Creates a copy of this storage that shares its memory with this one
+     * until either is written to. Later changes to either copy are not seen by
+     * the other. Taking a snapshot does not depend on the size of the board,
+     * the parts that are shared are copied by whichever side first writes to
+     * them.
+     * @return a copy of this storage sharing its tiles
+     */
+    BoardStorage snapshot();
+
+    /**
+     * Gets the type of this storage.
+     * @return the storage type
+     */
+    StorageType getType();
+
+    /**
+     * Estimates the heap used to hold the tiles, assuming a 64-bit JVM with
+     * compressed references (16 byte array headers, 4 byte references).
+     * @return the estimated size of the tile storage in bytes
+     */
+    long footprint();
+
+    /**
+     * Releases any memory held outside the Java heap. Storage on the heap is
+     * left to the garbage collector, so by default this does nothing.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,94 @@
+package pacman.board;
+
+/**
+ * Records the tiles of a board that have changed as a ring of packed tile
+ * indices ( y * width + x ). Every change is given a sequence number so that
+ * any number of readers can keep their own cursor into the journal.
+ * Nothing is recorded until the first cursor is taken, so a board nobody
+ * reads changes from pays nothing for the journal.
+ * The ring starts small and grows up to a fixed capacity, after which the
+ * oldest changes are dropped and readers with an older cursor are told that
+ * they have fallen behind.
+ */
+class ChangeJournal {
+    private static final int INITIAL_CAPACITY = 16;
+    // 64k changes (256KB) is more than a level's worth of eaten dots
+    private static final int MAX_CAPACITY = 1 << 16;
+
+    private int[] ring;
+    private long next;
+    private long oldest;
+    // true once a cursor has been taken
+    private boolean watched;
+
+    /**
+     * Records that a tile has changed, if any cursor has been taken.
+     * @param tile packed index of the tile that changed
+     */
+    void record(int tile) {
+        if (!watched) {
+            return;
+        } else if (ring == null) {
+            ring = new int[INITIAL_CAPACITY];
+        } else if (next - oldest == ring.length) {
+            if (ring.length < MAX_CAPACITY) {
+                grow();
+            } else {
+                // full, forget the oldest change
+                oldest++;
+            }
+        }
+        ring[(int) (next & (ring.length - 1))] = tile;
+        next++;
+    }
+
+    /*
+     * Doubles the size of the ring keeping the changes at the same sequence
+     * numbers.
+     */
+    private void grow() {
+        int[] larger = new int[ring.length * 2];
+        for (long seq = oldest; seq < next; seq++) {
+            larger[(int) (seq & (larger.length - 1))]
+                    = ring[(int) (seq & (ring.length - 1))];
+        }
+        ring = larger;
+    }
+
+    /**
+     * Gets the cursor that the next recorded change will have, and records
+     * changes from now on.
+     * @return the current cursor
+     */
+    long cursor() {
+        watched = true;
+        return next;
+    }
+
+    /**
+     * Gets the tiles changed since the given cursor, oldest first.
+     * A tile appears once for each time it was changed.
+     * @param cursor from a previous call to cursor()
+     * @return the packed tiles changed since the cursor, or null if some of
+     * those changes are no longer held.
+     */
+    int[] since(long cursor) {
+        if (cursor < oldest || cursor > next) {
+            return null;
+        }
+        int[] changes = new int[(int) (next - cursor)];
+        for (int i = 0; i < changes.length; i++) {
+            changes[i] = ring[(int) ((cursor + i) & (ring.length - 1))];
+        }
+        return changes;
+    }
+
+    /**
+     * Forgets every recorded change. Cursors from before the clear will get
+     * null from since(long), cursors taken after carry on as normal.
+     */
+    void clear() {
+        oldest = next;
+        ring = null;
+    }
+}
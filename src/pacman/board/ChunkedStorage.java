@@ -0,0 +1,170 @@
+package pacman.board;
+
+import java.util.Arrays;
+
+/**
+ * Stores the board in square chunks of CHUNK_SIZE by CHUNK_SIZE tiles, one
+ * byte per tile holding the ordinal of the BoardItem. A chunk where every tile
+ * holds the same item is a shared, read-only prototype until the first write
+ * to it that changes a tile, so large untouched areas of a board take no
+ * memory of their own. Snapshots share the chunks in the same way, a chunk is
+ * copied the first time it is written to.
+ */
+class ChunkedStorage implements BoardStorage {
+    // BoardItem.values() copies the array on every call, so keep one
+    private static final BoardItem[] ITEMS = BoardItem.values();
+
+    // chunks are 64 by 64 tiles, found by shifting and masking coordinates
+    static final int CHUNK_SHIFT = 6;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // one all-the-same chunk per BoardItem, indexed by ordinal, never written
+    private static final byte[][] PROTOTYPES = new byte[ITEMS.length][];
+
+    static {
+        for (int ordinal = 0; ordinal < ITEMS.length; ordinal++) {
+            PROTOTYPES[ordinal] = new byte[CHUNK_SIZE * CHUNK_SIZE];
+            Arrays.fill(PROTOTYPES[ordinal], (byte) ordinal);
+        }
+    }
+
+    private final int columns;
+    private byte[][] chunks;
+
+    // true once this storage has been snapshot or is a snapshot, the chunk
+    // table is shared while tableShared and a chunk is shared until owned
+    private boolean copyOnWrite;
+    private boolean tableShared;
+    private boolean[] ownedChunks;
+
+    /**
+     * Creates a storage of the given size with every tile set to NONE.
+     * @param width number of columns
+     * @param height number of rows
+     */
+    ChunkedStorage(int width, int height) {
+        this(width, height, BoardItem.NONE);
+    }
+
+    /**
+     * Creates a storage of the given size with every tile set to fill. No
+     * chunk memory is used until tiles are changed.
+     * @param width number of columns
+     * @param height number of rows
+     * @param fill item to set every tile to
+     */
+    ChunkedStorage(int width, int height, BoardItem fill) {
+        this.columns = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        int rows = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunks = new byte[columns * rows][];
+        Arrays.fill(chunks, PROTOTYPES[fill.ordinal()]);
+    }
+
+    /*
+     * Creates a storage that owns the given chunks.
+     */
+    private ChunkedStorage(int columns, byte[][] chunks) {
+        this.columns = columns;
+        this.chunks = chunks;
+    }
+
+    /*
+     * True if the chunk is one of the shared prototypes.
+     */
+    private static boolean isPrototype(byte[] chunk) {
+        return chunk == PROTOTYPES[chunk[0]];
+    }
+
+    @Override
+    public BoardItem get(int x, int y) {
+        byte[] chunk = chunks[(y >> CHUNK_SHIFT) * columns + (x >> CHUNK_SHIFT)];
+        return ITEMS[chunk[((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK)]];
+    }
+
+    @Override
+    public void set(int x, int y, BoardItem item) {
+        int index = (y >> CHUNK_SHIFT) * columns + (x >> CHUNK_SHIFT);
+        byte[] chunk = chunks[index];
+        byte ordinal = (byte) item.ordinal();
+        if (isPrototype(chunk)) {
+            if (chunk[0] == ordinal) {
+                return;
+            }
+            // first change to this chunk, give it its own tiles
+            chunk = chunk.clone();
+            own(index, chunk);
+        } else if (copyOnWrite && (tableShared || !ownedChunks[index])) {
+            // shared with a snapshot
+            chunk = chunk.clone();
+            own(index, chunk);
+        }
+        chunk[((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK)] = ordinal;
+    }
+
+    /*
+     * Puts a chunk that belongs to this storage alone into the chunk table,
+     * first copying the table if it is shared.
+     */
+    private void own(int index, byte[] chunk) {
+        if (tableShared) {
+            chunks = chunks.clone();
+            ownedChunks = new boolean[chunks.length];
+            tableShared = false;
+        }
+        chunks[index] = chunk;
+        if (copyOnWrite) {
+            ownedChunks[index] = true;
+        }
+    }
+
+    @Override
+    public BoardStorage copy() {
+        byte[][] copy = new byte[chunks.length][];
+        for (int index = 0; index < chunks.length; index++) {
+            byte[] chunk = chunks[index];
+            copy[index] = isPrototype(chunk) ? chunk : chunk.clone();
+        }
+        return new ChunkedStorage(columns, copy);
+    }
+
+    @Override
+    public BoardStorage snapshot() {
+        // from now on neither side owns any of the chunks
+        copyOnWrite = true;
+        tableShared = true;
+        ownedChunks = null;
+        ChunkedStorage snapshot = new ChunkedStorage(columns, chunks);
+        snapshot.copyOnWrite = true;
+        snapshot.tableShared = true;
+        return snapshot;
+    }
+
+    @Override
+    public StorageType getType() {
+        return StorageType.CHUNKED;
+    }
+
+    @Override
+    public long footprint() {
+        // chunk reference table, then a header and a byte per tile per chunk
+        // that has its own tiles, prototypes are shared by every board
+        long bytes = 16 + 4L * chunks.length;
+        bytes += materialised() * (16L + CHUNK_SIZE * CHUNK_SIZE);
+        return bytes;
+    }
+
+    /**
+     * Gets the number of chunks that have their own tiles.
+     * @return the number of chunks that are not shared prototypes
+     */
+    int materialised() {
+        int count = 0;
+        for (byte[] chunk : chunks) {
+            if (!isPrototype(chunk)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+package pacman.board;
+
+import pacman.util.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Walking distances from one source tile to every other tile on a board,
+ * found with a breadth first search over pathable tiles. The arrays are
+ * allocated once and reused each time the field is computed.
+ */
+class DistanceField {
+    // distance for tiles that cannot be reached from the source
+    static final int UNREACHABLE = -1;
+
+    private static final int LEFT = Direction.LEFT.mask();
+    private static final int RIGHT = Direction.RIGHT.mask();
+    private static final int UP = Direction.UP.mask();
+    private static final int DOWN = Direction.DOWN.mask();
+
+    private final int width;
+    private final int height;
+    private final int[] distances;
+    private final int[] queue;
+
+    /**
+     * Creates a field for a board of the given size where nothing can be
+     * reached yet.
+     * @param width of the board
+     * @param height of the board
+     */
+    DistanceField(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.distances = new int[width * height];
+        this.queue = new int[width * height];
+        Arrays.fill(distances, UNREACHABLE);
+    }
+
+    /**
+     * Works out the distance from (x, y) to every tile that can be walked to
+     * from it. This takes one pass over the reachable tiles.
+     * @param board to walk over, must be the same size as this field
+     * @param x column of the source tile
+     * @param y row of the source tile
+     */
+    void compute(PacmanBoard board, int x, int y) {
+        Arrays.fill(distances, UNREACHABLE);
+        if (x < 0 || x > width - 1 || y < 0 || y > height - 1) {
+            return;
+        }
+
+        int head = 0;
+        int tail = 0;
+        int source = y * width + x;
+        distances[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int tile = queue[head++];
+            int column = tile % width;
+            int row = tile / width;
+            // the neighbour mask only has moves to tiles on the board
+            int moves = board.getNeighbours(column, row);
+            tail = visit(moves, LEFT, tile - 1, tile, tail);
+            tail = visit(moves, RIGHT, tile + 1, tile, tail);
+            tail = visit(moves, UP, tile - width, tile, tail);
+            tail = visit(moves, DOWN, tile + width, tile, tail);
+        }
+    }
+
+    /*
+     * Queues next if the move towards it is in moves and it has not been
+     * reached yet, returning the new tail of the queue.
+     */
+    private int visit(int moves, int bit, int next, int from, int tail) {
+        if ((moves & bit) != 0 && distances[next] == UNREACHABLE) {
+            distances[next] = distances[from] + 1;
+            queue[tail++] = next;
+        }
+        return tail;
+    }
+
+    /**
+     * Gets the distance from the source to (x, y).
+     * @param x column of the tile
+     * @param y row of the tile
+     * @return the number of steps from the source, or UNREACHABLE if (x, y) is
+     * off the board or cannot be walked to.
+     */
+    int get(int x, int y) {
+        if (x < 0 || x > width - 1 || y < 0 || y > height - 1) {
+            return UNREACHABLE;
+        }
+        return distances[y * width + x];
+    }
+}
@@ -0,0 +1,327 @@
+package pacman.board;
+
+import pacman.util.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Walking distances between any two tiles of a board, answered without
+ * searching. Tiles with three or more pathable neighbours are junctions and
+ * the distance between every pair of junctions is kept in a table. Every other
+ * pathable tile lies on a corridor running between (at most) two junctions and
+ * knows how far along the corridor it is, so a tile to tile distance is the
+ * shortest of the routes out of either end of each corridor, or straight along
+ * the corridor when both tiles are on the same one.
+ * The table is worked out from the board as it is when built and is not
+ * changed by later edits to the board.
+ */
+class JunctionTable {
+    // distance for tiles that cannot be reached from each other
+    static final int UNREACHABLE = -1;
+
+    // no junction or corridor, also the end of a corridor at a dead end
+    private static final int NONE = -1;
+
+    private final int width;
+    private final int height;
+
+    // for each tile, its junction number or NONE if it is not a junction
+    private final int[] junctionOf;
+    // for each tile, its corridor number or NONE if it is not on a corridor
+    private final int[] corridorOf;
+    // for each corridor tile, the number of tiles before it on its corridor
+    private final int[] along;
+
+    // for each corridor, the junction before its first tile and after its last
+    private final int[] ends;
+    // for each corridor, the number of tiles on it
+    private final int[] lengths;
+    // for each corridor, true if it is a loop with no junctions
+    private final boolean[] loops;
+
+    // junction count squared, row-major, of junction to junction distances
+    private final int[] table;
+    private final int junctionCount;
+
+    private JunctionTable(int width, int height, int[] junctionOf,
+            int junctionCount, int[] corridorOf, int[] along, int[] ends, int[] lengths,
+            boolean[] loops, int[] table) {
+        this.width = width;
+        this.height = height;
+        this.junctionOf = junctionOf;
+        this.junctionCount = junctionCount;
+        this.corridorOf = corridorOf;
+        this.along = along;
+        this.ends = ends;
+        this.lengths = lengths;
+        this.loops = loops;
+        this.table = table;
+    }
+
+    /**
+     * Builds the table for the board as it is now, unless it would take more
+     * than maxBytes of memory.
+     * @param board to build the table for
+     * @param maxBytes the most memory the table may use
+     * @return the table, or null if it would use more than maxBytes or the
+     * board has more tiles than an array can index.
+     */
+    static JunctionTable build(PacmanBoard board, long maxBytes) {
+        int width = board.getWidth();
+        if ((long) width * board.getHeight() > Integer.MAX_VALUE) {
+            return null;
+        }
+        int tiles = width * board.getHeight();
+
+        // number the junctions
+        int[] junctionOf = new int[tiles];
+        int junctionCount = 0;
+        for (int tile = 0; tile < tiles; tile++) {
+            junctionOf[tile] = isJunction(board, width, tile)
+                    ? junctionCount++ : NONE;
+        }
+        // the per corridor arrays are at most one entry per tile
+        long bytes = footprint(tiles, junctionCount, tiles);
+        if (bytes > maxBytes) {
+            return null;
+        }
+
+        // walk each corridor from one end to the other
+        int[] corridorOf = new int[tiles];
+        int[] along = new int[tiles];
+        int[] ends = new int[16];
+        int[] lengths = new int[8];
+        boolean[] loops = new boolean[8];
+        int corridorCount = 0;
+        Arrays.fill(corridorOf, NONE);
+        for (int tile = 0; tile < tiles; tile++) {
+            if (junctionOf[tile] != NONE || corridorOf[tile] != NONE
+                    || !board.isPathable(tile % width, tile / width)) {
+                continue;
+            }
+            if (corridorCount == lengths.length) {
+                ends = Arrays.copyOf(ends, ends.length * 2);
+                lengths = Arrays.copyOf(lengths, lengths.length * 2);
+                loops = Arrays.copyOf(loops, loops.length * 2);
+            }
+            walkCorridor(board, width, tile, corridorCount, junctionOf,
+                    corridorOf, along, ends, lengths, loops);
+            corridorCount++;
+        }
+
+        // one search from each junction fills in its row of the table
+        int[] table = new int[junctionCount * junctionCount];
+        int[] junctions = new int[junctionCount];
+        for (int tile = 0; tile < tiles; tile++) {
+            if (junctionOf[tile] != NONE) {
+                junctions[junctionOf[tile]] = tile;
+            }
+        }
+        DistanceField field = new DistanceField(width, board.getHeight());
+        for (int from = 0; from < junctionCount; from++) {
+            field.compute(board, junctions[from] % width, junctions[from] / width);
+            for (int to = 0; to < junctionCount; to++) {
+                table[from * junctionCount + to] = field.get(
+                        junctions[to] % width, junctions[to] / width);
+            }
+        }
+
+        return new JunctionTable(width, board.getHeight(), junctionOf,
+                junctionCount, corridorOf, along,
+                Arrays.copyOf(ends, corridorCount * 2),
+                Arrays.copyOf(lengths, corridorCount),
+                Arrays.copyOf(loops, corridorCount), table);
+    }
+
+    /*
+     * Approximate number of bytes used by a table with the given counts, with
+     * 16 bytes for the object and each array header.
+     */
+    private static long footprint(int tiles, int junctions, int corridors) {
+        long perTile = 3L * 4 * tiles;
+        long perCorridor = 3L * 4 * corridors + corridors;
+        long junctionTable = 4L * junctions * junctions;
+        return 16 * 8 + perTile + perCorridor + junctionTable;
+    }
+
+    /*
+     * True if the tile is pathable with three or more pathable neighbours.
+     */
+    private static boolean isJunction(PacmanBoard board, int width, int tile) {
+        int x = tile % width;
+        int y = tile / width;
+        return board.isPathable(x, y)
+                && Integer.bitCount(board.getNeighbours(x, y)) >= 3;
+    }
+
+    /*
+     * Gets the tile next to the given one that can be moved to and is not
+     * previous, or NONE if there is none. Only the first found is returned, so
+     * this is only used on tiles with at most two pathable neighbours.
+     */
+    private static int next(PacmanBoard board, int width, int tile,
+            int previous) {
+        int x = tile % width;
+        int y = tile / width;
+        int moves = board.getNeighbours(x, y);
+        for (Direction direction : Direction.values()) {
+            if ((moves & direction.mask()) == 0) {
+                continue;
+            }
+            int neighbour = (y + direction.getY()) * width + x + direction.getX();
+            if (neighbour != previous) {
+                return neighbour;
+            }
+        }
+        return NONE;
+    }
+
+    /*
+     * Numbers the tiles of the corridor through start, first walking to one
+     * end of it then back along the whole corridor.
+     */
+    private static void walkCorridor(PacmanBoard board, int width, int start,
+            int corridor, int[] junctionOf, int[] corridorOf, int[] along,
+            int[] ends, int[] lengths, boolean[] loops) {
+        // find an end: the tile before a junction, a dead end or back to start
+        int previous = NONE;
+        int first = start;
+        boolean loop = false;
+        while (true) {
+            int next = next(board, width, first, previous);
+            if (next == NONE || junctionOf[next] != NONE) {
+                previous = next;
+                break;
+            }
+            if (next == start) {
+                loop = true;
+                break;
+            }
+            previous = first;
+            first = next;
+        }
+        if (loop) {
+            // walk from start away from the tile that led back to it
+            previous = first;
+            first = start;
+        }
+
+        ends[corridor * 2] = previous == NONE || loop
+                ? NONE : junctionOf[previous];
+        int tile = first;
+        int length = 0;
+        while (true) {
+            corridorOf[tile] = corridor;
+            along[tile] = length++;
+            int next = next(board, width, tile, previous);
+            if (next == NONE || next == first) {
+                ends[corridor * 2 + 1] = NONE;
+                break;
+            }
+            if (junctionOf[next] != NONE) {
+                ends[corridor * 2 + 1] = junctionOf[next];
+                break;
+            }
+            previous = tile;
+            tile = next;
+        }
+        lengths[corridor] = length;
+        loops[corridor] = loop;
+    }
+
+    /**
+     * Gets the walking distance between two tiles.
+     * @param fromX column of the first tile
+     * @param fromY row of the first tile
+     * @param toX column of the second tile
+     * @param toY row of the second tile
+     * @return the number of steps between the tiles, or UNREACHABLE if either
+     * is off the board, not pathable or they are not connected.
+     */
+    int get(int fromX, int fromY, int toX, int toY) {
+        if (fromX < 0 || fromX > width - 1 || fromY < 0 || fromY > height - 1
+                || toX < 0 || toX > width - 1 || toY < 0 || toY > height - 1) {
+            return UNREACHABLE;
+        }
+        int from = fromY * width + fromX;
+        int to = toY * width + toX;
+        int fromCorridor = corridorOf[from];
+        int toCorridor = corridorOf[to];
+        if (junctionOf[from] == NONE && fromCorridor == NONE
+                || junctionOf[to] == NONE && toCorridor == NONE) {
+            // a wall
+            return UNREACHABLE;
+        }
+        if (from == to) {
+            return 0;
+        }
+
+        long best = Long.MAX_VALUE;
+        if (fromCorridor != NONE && fromCorridor == toCorridor) {
+            int steps = Math.abs(along[from] - along[to]);
+            if (loops[fromCorridor]) {
+                steps = Math.min(steps, lengths[fromCorridor] - steps);
+            }
+            best = steps;
+        }
+
+        // every way out of the first tile against every way into the second
+        for (int i = 0; i < 2; i++) {
+            int fromJunction = exit(from, i);
+            if (fromJunction == NONE) {
+                continue;
+            }
+            int fromSteps = exitSteps(from, i);
+            for (int j = 0; j < 2; j++) {
+                int toJunction = exit(to, j);
+                if (toJunction == NONE) {
+                    continue;
+                }
+                int between = table[fromJunction * junctionCount + toJunction];
+                if (between != UNREACHABLE) {
+                    best = Math.min(best, (long) fromSteps + between
+                            + exitSteps(to, j));
+                }
+            }
+        }
+        return best == Long.MAX_VALUE ? UNREACHABLE : (int) best;
+    }
+
+    /*
+     * Gets the junction a tile leaves by, end 0 or 1 of its corridor, or the
+     * tile itself (end 0 only) if it is a junction.
+     */
+    private int exit(int tile, int end) {
+        if (junctionOf[tile] != NONE) {
+            return end == 0 ? junctionOf[tile] : NONE;
+        }
+        return ends[corridorOf[tile] * 2 + end];
+    }
+
+    /*
+     * Gets the number of steps from a tile to the junction at the given end.
+     */
+    private int exitSteps(int tile, int end) {
+        if (junctionOf[tile] != NONE) {
+            return 0;
+        }
+        int corridor = corridorOf[tile];
+        return end == 0 ? along[tile] + 1 : lengths[corridor] - along[tile];
+    }
+
+    /**
+     * Gets the number of junctions on the board.
+     * @return number of tiles with three or more pathable neighbours.
+     */
+    int getJunctionCount() {
+        return junctionCount;
+    }
+
+    /**
+     * Gets the approximate number of bytes used by the table.
+     * @return the memory used by the table in bytes.
+     */
+    long footprint() {
+        return footprint(junctionOf.length, junctionCount, lengths.length);
+    }
+}
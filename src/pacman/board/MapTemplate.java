@@ -0,0 +1,57 @@
+package pacman.board;
+
+/**
+ * An immutable map that any number of game sessions can play on at once.
+ * The template holds the layout of the map (walls, spawns, big dot spawns),
+ * the pathable neighbours of every tile and the junction table, along with
+ * the dots the map starts with. Each board made by createBoard() shares all
+ * of this with the template and only gets memory of its own for the parts it
+ * changes, so a session that eats its way around the map costs about one bit
+ * per tile, and starting a session never re-reads the map.
+ */
+public final class MapTemplate {
+    // never changed, only ever snapshot
+    private final PacmanBoard layout;
+
+    /**
+     * Creates a template of the board as it is now. Later changes to the
+     * board are not seen by the template.
+     * @param board to make the template from
+     * @throws NullPointerException if board is null.
+     */
+    public MapTemplate(PacmanBoard board) throws NullPointerException {
+        if (board == null) {
+            throw new NullPointerException();
+        }
+        this.layout = board.snapshot();
+        this.layout.prepareShared();
+    }
+
+    /**
+     * Gets the width of the map.
+     * @return width of the map
+     */
+    public int getWidth() {
+        return layout.getWidth();
+    }
+
+    /**
+     * Gets the height of the map.
+     * @return height of the map
+     */
+    public int getHeight() {
+        return layout.getHeight();
+    }
+
+    /**
+     * Creates a board for a new session on this map. The board is equal to
+     * the board the template was made from and can be changed freely, without
+     * any other session or the template seeing the changes. This takes the
+     * same time whatever the size of the map. Safe to call from any thread.
+     * @return a new board for this map
+     */
+    public synchronized PacmanBoard createBoard() {
+        // snapshot() marks the layout as shared, which only it can see
+        return layout.snapshot();
+    }
+}
@@ -0,0 +1,147 @@
+package pacman.board;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Stores the board as one byte per tile, the ordinal of the BoardItem, in a
+ * single row-major buffer outside the Java heap. The buffer is either
+ * allocated directly or is a read-only mapping of a compiled board file (see
+ * BoardFile), in which case the tiles are read straight from the file and the
+ * buffer is copied the first time a tile is changed, so changes are never
+ * written back to it.
+ * A mapped file may still hold DOT and BIG_DOT tiles, these are read as the
+ * NONE and BIG_DOT_SPAWN layout they sit on, the same as the other storages
+ * hold them. Once closed the storage can no longer be read or written.
+ */
+class OffHeapStorage implements BoardStorage {
+    // BoardItem.values() copies the array on every call, so keep one
+    private static final BoardItem[] ITEMS = BoardItem.values();
+    // the layout under each item, indexed by ordinal
+    private static final BoardItem[] LAYOUT = new BoardItem[ITEMS.length];
+
+    static {
+        for (BoardItem item : ITEMS) {
+            LAYOUT[item.ordinal()] = item;
+        }
+        LAYOUT[BoardItem.DOT.ordinal()] = BoardItem.NONE;
+        LAYOUT[BoardItem.BIG_DOT.ordinal()] = BoardItem.BIG_DOT_SPAWN;
+    }
+
+    private final int width;
+    private final int size;
+    private ByteBuffer tiles;
+    // true while the buffer is shared with a snapshot or is read-only
+    private boolean shared;
+
+    /**
+     * Creates a storage of the given size with every tile set to NONE.
+     * @param width number of columns
+     * @param height number of rows
+     * @throws IllegalArgumentException if there are more tiles than fit in
+     * one buffer
+     */
+    OffHeapStorage(int width, int height) throws IllegalArgumentException {
+        // NONE is the first BoardItem and direct buffers start zeroed
+        this(width, ByteBuffer.allocateDirect(
+                PackedStorage.tileCount(width, height)));
+    }
+
+    /**
+     * Creates a storage over the given buffer of tile ordinals, which must
+     * hold exactly one byte per tile from position 0. A read-only buffer is
+     * copied before the first write.
+     * @param width number of columns
+     * @param tiles buffer of tile ordinals
+     */
+    OffHeapStorage(int width, ByteBuffer tiles) {
+        this.width = width;
+        this.size = tiles.capacity();
+        this.tiles = tiles;
+        this.shared = tiles.isReadOnly();
+    }
+
+    /*
+     * Gets the buffer, if the storage has not been closed.
+     */
+    private ByteBuffer tiles() {
+        if (tiles == null) {
+            throw new IllegalStateException("board storage has been closed");
+        }
+        return tiles;
+    }
+
+    /**
+     * Gets the item stored in a tile, which for a mapped file may be a DOT
+     * or BIG_DOT rather than the layout under it.
+     * @param index row-major index of the tile
+     * @return the item stored in the tile
+     * @throws IllegalArgumentException if the tile does not hold a BoardItem
+     */
+    BoardItem stored(int index) {
+        int ordinal = tiles().get(index);
+        if (ordinal < 0 || ordinal >= ITEMS.length) {
+            throw new IllegalArgumentException();
+        }
+        return ITEMS[ordinal];
+    }
+
+    @Override
+    public BoardItem get(int x, int y) {
+        return LAYOUT[tiles().get(y * width + x)];
+    }
+
+    @Override
+    public void set(int x, int y, BoardItem item) {
+        if (shared) {
+            tiles = copyOf(tiles());
+            shared = false;
+        }
+        tiles().put(y * width + x, (byte) item.ordinal());
+    }
+
+    /*
+     * Copies the buffer into a new direct buffer.
+     */
+    private static ByteBuffer copyOf(ByteBuffer from) {
+        ByteBuffer copy = ByteBuffer.allocateDirect(from.capacity());
+        copy.put(from.duplicate().clear());
+        return copy;
+    }
+
+    @Override
+    public BoardStorage copy() {
+        return new OffHeapStorage(width, copyOf(tiles()));
+    }
+
+    @Override
+    public BoardStorage snapshot() {
+        // the buffer is a single block, so it is copied whole on first write
+        shared = true;
+        OffHeapStorage snapshot = new OffHeapStorage(width, tiles());
+        snapshot.shared = true;
+        return snapshot;
+    }
+
+    @Override
+    public StorageType getType() {
+        return StorageType.OFF_HEAP;
+    }
+
+    /**
+     * Gets the size of the tile buffer. None of it is on the Java heap.
+     * @return the number of bytes outside the heap used for the tiles
+     */
+    @Override
+    public long footprint() {
+        return size;
+    }
+
+    /**
+     * Lets go of the buffer. Java frees the memory once no storage is using
+     * it, a snapshot sharing the buffer keeps its own reference to it.
+     */
+    @Override
+    public void close() {
+        tiles = null;
+    }
+}
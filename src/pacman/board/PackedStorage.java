@@ -0,0 +1,87 @@
+package pacman.board;
+
+/**
+ * Stores the board as one byte per tile in a single row-major array, where
+ * each byte is the ordinal of the BoardItem in that tile. Snapshots share the
+ * array, as it is a single array it is copied whole on the first write.
+ */
+class PackedStorage implements BoardStorage {
+    // BoardItem.values() copies the array on every call, so keep one
+    private static final BoardItem[] ITEMS = BoardItem.values();
+
+    private final int width;
+    private byte[] tiles;
+    // true while the array is shared with a snapshot
+    private boolean shared;
+
+    /**
+     * Creates a storage of the given size with every tile set to NONE.
+     * @param width number of columns
+     * @param height number of rows
+     * @throws IllegalArgumentException if there are more tiles than fit in
+     * one array
+     */
+    PackedStorage(int width, int height) throws IllegalArgumentException {
+        // NONE is the first BoardItem so a new array is already all NONE
+        this(width, new byte[tileCount(width, height)]);
+    }
+
+    /*
+     * Gets the number of tiles on a board of the given size, as long as they
+     * can be held in one array or buffer.
+     * Throws IllegalArgumentException if there are too many.
+     */
+    static int tileCount(int width, int height)
+            throws IllegalArgumentException {
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("board too big: " + width
+                    + " by " + height);
+        }
+        return width * height;
+    }
+
+    /*
+     * Creates a storage that owns the given tiles.
+     */
+    private PackedStorage(int width, byte[] tiles) {
+        this.width = width;
+        this.tiles = tiles;
+    }
+
+    @Override
+    public BoardItem get(int x, int y) {
+        return ITEMS[tiles[y * width + x]];
+    }
+
+    @Override
+    public void set(int x, int y, BoardItem item) {
+        if (shared) {
+            tiles = tiles.clone();
+            shared = false;
+        }
+        tiles[y * width + x] = (byte) item.ordinal();
+    }
+
+    @Override
+    public BoardStorage copy() {
+        return new PackedStorage(width, tiles.clone());
+    }
+
+    @Override
+    public BoardStorage snapshot() {
+        shared = true;
+        PackedStorage snapshot = new PackedStorage(width, tiles);
+        snapshot.shared = true;
+        return snapshot;
+    }
+
+    @Override
+    public StorageType getType() {
+        return StorageType.PACKED;
+    }
+
+    @Override
+    public long footprint() {
+        return 16 + (long) tiles.length;
+    }
+}
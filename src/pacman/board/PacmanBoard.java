@@ -1,8 +1,12 @@
 package pacman.board;
 
+import pacman.util.Direction;
 import pacman.util.Position;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
 
 /**
  * Represents the Pac Man game board. The board can be any size, it is set out
@@ -12,47 +16,174 @@ import java.util.Arrays;
  * position is (0, 0) and the bottom right position is (getWidth-1, getHeight-1).
  */
 public class PacmanBoard {
+    /**
+     * The most memory, in bytes, prepareMazeDistances() lets the junction
+     * table use before falling back to searching on demand.
+     */
+    public static final long MAX_JUNCTION_TABLE_BYTES = 16L * 1024 * 1024;
+
+    // Direction.values() copies the array on every call, so keep one
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int ITEM_COUNT = BoardItem.values().length;
+
     private int width;
     private int height;
-    private BoardItem[][] board;
+    private BoardStorage storage;
+
+    // Dots are kept out of the storage, which only holds the layout that does
+    // not change in play (DOT tiles hold NONE and BIG_DOT tiles hold
+    // BIG_DOT_SPAWN). A bit per tile says if the dot is there and the respawn
+    // masks say where reset puts them back, so reset is a word-wide OR
+    private TileBitSet dots;
+    private TileBitSet bigDots;
+    private TileBitSet dotRespawns;
+    private TileBitSet bigDotRespawns;
+
+    // Index of the spawn tiles so they never need to be searched for
+    private Position pacmanSpawn;
+    private Position ghostSpawn;
+
+    // Live count of the pickup items left on the board
+    private int remainingDots;
+    private int remainingBigDots;
+
+    // 64-bit Zobrist hash of the tiles, worked out the first time it is asked
+    // for and kept up to date as tiles are placed after that
+    private long zobrist;
+    private boolean zobristValid;
+
+    // Tiles changed since they were last cleared, a copy starts with none
+    private ChangeJournal changes = new ChangeJournal();
+
+    // Direction mask of the pathable neighbours of each tile (row-major),
+    // built the first time it is asked for and kept up to date after that,
+    // shared with snapshots until either side changes a wall. Only ARRAY and
+    // PACKED boards keep one, see tablesNeighbours()
+    private byte[] neighbours;
+    private boolean neighboursShared;
+
+    // Walking distances from the tile given to the last updateDistances call
+    private DistanceField distances;
+
+    // Junction to junction distances for getMazeDistance, held for the
+    // layout of walls rather than the board. Copies and snapshots share the
+    // holder until either side adds or removes a wall, so the table is built
+    // once for all of them by whichever needs it first
+    private SharedJunctions junctions;
+    // Search used by getMazeDistance when there is no junction table, kept
+    // with the tile it was searched from so repeated queries reuse it
+    private DistanceField searches;
+    private int searchSource = -1;
 
     /**
      * Constructor taking the getWidth and getHeight creating a board that is
      * filled with BoardItem.NONNE, except a 1 block wide border wall around the
-     * entire board ( BoardItem.WALL ).
+     * entire board ( BoardItem.WALL ). The tiles are held in StorageType.ARRAY
+     * storage.
      * @param width the horizontal size of the board which is greater than zero.
      * @param height the vertical size of the board which is greater than zero.
      * @throws IllegalArgumentException- when getHeight || getWidth is less than
-     * or equal to 0.
+     * or equal to 0, or the board has more than Integer.MAX_VALUE tiles.
      */
     public PacmanBoard(int width, int height) throws IllegalArgumentException {
-        if (width <= 0 || height <= 0) {
+        this(width, height, StorageType.ARRAY);
+    }
+
+    /**
+     * Constructor taking the getWidth, getHeight and the type of storage to
+     * hold the tiles in. The board is filled the same as
+     * PacmanBoard(int, int).
+     * @param width the horizontal size of the board which is greater than zero.
+     * @param height the vertical size of the board which is greater than zero.
+     * @param type of storage used to hold the tiles.
+     * @throws IllegalArgumentException when getHeight || getWidth is less than
+     * or equal to 0, or the board has more than Integer.MAX_VALUE tiles.
+     * @throws NullPointerException when type is null.
+     */
+    public PacmanBoard(int width, int height, StorageType type)
+            throws IllegalArgumentException, NullPointerException {
+        this(width, height, type, BoardItem.NONE);
+    }
+
+    /**
+     * Constructor taking the getWidth, getHeight, the type of storage to hold
+     * the tiles in and the item to fill the board with. The board is
+     * surrounded by a 1 block wide border wall the same as
+     * PacmanBoard(int, int), with every other space being fill. Generated maps
+     * can start as all BoardItem.WALL and carve out their corridors, and with
+     * StorageType.CHUNKED the areas left alone take no memory of their own.
+     * @param width the horizontal size of the board which is greater than zero.
+     * @param height the vertical size of the board which is greater than zero.
+     * @param type of storage used to hold the tiles.
+     * @param fill item for every space inside the border, one of
+     * BoardItem.NONE, BoardItem.WALL, BoardItem.DOT or BoardItem.BIG_DOT.
+     * @throws IllegalArgumentException when getHeight || getWidth is less than
+     * or equal to 0, fill is a spawn, or the board has more than
+     * Integer.MAX_VALUE tiles. Tiles are indexed by an int, y * width + x,
+     * for every StorageType, StorageType.CHUNKED included.
+     * @throws NullPointerException when type or fill is null.
+     */
+    public PacmanBoard(int width, int height, StorageType type, BoardItem fill)
+            throws IllegalArgumentException, NullPointerException {
+        if (type == null || fill == null) {
+            throw new NullPointerException();
+        } else if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException();
+        } else if ((long) width * height > Integer.MAX_VALUE) {
+            // the same bound as PackedStorage.tileCount(int, int)
+            throw new IllegalArgumentException("board too big: " + width
+                    + " by " + height);
+        } else if (fill == BoardItem.PACMAN_SPAWN
+                || fill == BoardItem.GHOST_SPAWN
+                || fill == BoardItem.BIG_DOT_SPAWN) {
+            // there can only be one of each spawn
             throw new IllegalArgumentException();
         }
 
         this.width = width;
         this.height = height;
 
-        this.board = new BoardItem[height][width];
+        // Storage starts as all fill, so only the border needs placing
+        BoardItem layout = layoutOf(fill);
+        this.storage = createStorage(type, width, height, layout);
+        this.dots = new TileBitSet(width, height, fill == BoardItem.DOT);
+        this.bigDots = new TileBitSet(width, height, fill == BoardItem.BIG_DOT);
+        this.dotRespawns = new TileBitSet(width, height,
+                layout == BoardItem.NONE);
+        this.bigDotRespawns = new TileBitSet(width, height,
+                layout == BoardItem.BIG_DOT_SPAWN);
+        long inside = (long) Math.max(0, width - 2) * Math.max(0, height - 2);
+        if (fill == BoardItem.DOT) {
+            remainingDots = (int) inside;
+        } else if (fill == BoardItem.BIG_DOT) {
+            remainingBigDots = (int) inside;
+        }
         for (int column = 0; column < width; column++) {
-            for (int row = 0; row < height; row++) {
-                // If position in first or last row or column, place WALL
-                if (row == 0 || row == height - 1) {
-                    board[row][column] = BoardItem.WALL;
-                } else if (column == 0 || column == width - 1) {
-                    board[row][column] = BoardItem.WALL;
-                } else {
-                    board[row][column] = BoardItem.NONE;
-                }
-            }
+            border(column, 0);
+            border(column, height - 1);
+        }
+        for (int row = 0; row < height; row++) {
+            border(0, row);
+            border(width - 1, row);
         }
     }
 
+    /*
+     * Puts a border wall at (x, y) while the board is being constructed.
+     */
+    private void border(int x, int y) {
+        storage.set(x, y, BoardItem.WALL);
+        dots.set(x, y, false);
+        bigDots.set(x, y, false);
+        dotRespawns.set(x, y, false);
+        bigDotRespawns.set(x, y, false);
+    }
+
     /**
      * Constructor taking an existing PacmanBoard and making a deep copy.
      * A deep copy should have the same getWidth, getHeight and board as the
      * given board, When a change is made to the other board this should not
-     * change this copy.
+     * change this copy. The copy uses the same StorageType as the other board.
      * @param other copy of an existing PacmanBoard.
      * @throws NullPointerException if copy is null.
      */
@@ -63,10 +194,206 @@ public class PacmanBoard {
 
         this.width = other.width;
         this.height = other.height;
-        this.board = new BoardItem[height][width];
-        for (int row = 0; row < height; row++) {
-            board[row] = Arrays.copyOf(other.board[row], other.board[row].length);
+        this.storage = other.storage.copy();
+        this.dots = other.dots.copy();
+        this.bigDots = other.bigDots.copy();
+        this.dotRespawns = other.dotRespawns.copy();
+        this.bigDotRespawns = other.bigDotRespawns.copy();
+        this.pacmanSpawn = other.pacmanSpawn;
+        this.ghostSpawn = other.ghostSpawn;
+        this.remainingDots = other.remainingDots;
+        this.remainingBigDots = other.remainingBigDots;
+        this.zobrist = other.zobrist;
+        this.zobristValid = other.zobristValid;
+        if (other.neighbours != null) {
+            this.neighbours = other.neighbours.clone();
+        }
+        this.junctions = other.sharedJunctions();
+    }
+
+    /*
+     * Constructor for snapshot(), sharing everything with other until either
+     * side changes it.
+     */
+    private PacmanBoard(PacmanBoard other, BoardStorage storage) {
+        this.width = other.width;
+        this.height = other.height;
+        this.storage = storage;
+        this.dots = other.dots.snapshot();
+        this.bigDots = other.bigDots.snapshot();
+        this.dotRespawns = other.dotRespawns.snapshot();
+        this.bigDotRespawns = other.bigDotRespawns.snapshot();
+        this.pacmanSpawn = other.pacmanSpawn;
+        this.ghostSpawn = other.ghostSpawn;
+        this.remainingDots = other.remainingDots;
+        this.remainingBigDots = other.remainingBigDots;
+        this.zobrist = other.zobrist;
+        this.zobristValid = other.zobristValid;
+        this.neighbours = other.neighbours;
+        this.neighboursShared = other.neighbours != null;
+        other.neighboursShared = this.neighboursShared;
+        this.junctions = other.sharedJunctions();
+    }
+
+    /*
+     * Constructor for BoardFile, taking storage that already holds every
+     * tile, dots included. Each tile is read once to fill in the dot layer a
+     * word at a time, the spawns and the dot counts.
+     * Throws IllegalArgumentException if a tile does not hold a BoardItem or
+     * there is more than one pacman or ghost spawn.
+     */
+    PacmanBoard(OffHeapStorage storage, int width, int height)
+            throws IllegalArgumentException {
+        this.width = width;
+        this.height = height;
+        this.storage = storage;
+        this.dots = new TileBitSet(width, height, false);
+        this.bigDots = new TileBitSet(width, height, false);
+        this.dotRespawns = new TileBitSet(width, height, false);
+        this.bigDotRespawns = new TileBitSet(width, height, false);
+        for (int y = 0; y < height; y++) {
+            for (int column = 0; column < dots.getColumns(); column++) {
+                long dotBits = 0;
+                long noneBits = 0;
+                long bigDotBits = 0;
+                long bigSpawnBits = 0;
+                int start = column << TileBitSet.PAGE_SHIFT;
+                int end = Math.min(width, start + TileBitSet.PAGE_SIZE);
+                for (int x = start; x < end; x++) {
+                    long bit = 1L << (x - start);
+                    switch (storage.stored(y * width + x)) {
+                        case DOT:
+                            // a dot sits on NONE
+                            dotBits |= bit;
+                            noneBits |= bit;
+                            break;
+                        case NONE:
+                            noneBits |= bit;
+                            break;
+                        case BIG_DOT:
+                            // a big dot sits on its spawn
+                            bigDotBits |= bit;
+                            bigSpawnBits |= bit;
+                            break;
+                        case BIG_DOT_SPAWN:
+                            bigSpawnBits |= bit;
+                            break;
+                        case PACMAN_SPAWN:
+                            if (pacmanSpawn != null) {
+                                throw new IllegalArgumentException();
+                            }
+                            pacmanSpawn = new Position(x, y);
+                            break;
+                        case GHOST_SPAWN:
+                            if (ghostSpawn != null) {
+                                throw new IllegalArgumentException();
+                            }
+                            ghostSpawn = new Position(x, y);
+                            break;
+                    }
+                }
+                dots.or(y, column, dotBits);
+                dotRespawns.or(y, column, noneBits);
+                bigDots.or(y, column, bigDotBits);
+                bigDotRespawns.or(y, column, bigSpawnBits);
+                remainingDots += Long.bitCount(dotBits);
+                remainingBigDots += Long.bitCount(bigDotBits);
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of this board. The snapshot is equal to this board and
+     * later changes to either are not seen by the other, the same as
+     * PacmanBoard(PacmanBoard), but nothing is copied up front. The two boards
+     * share their tiles and each row (or chunk for StorageType.CHUNKED) is
+     * copied by whichever board first changes it, so a snapshot costs the same
+     * no matter the size of the board and memory only grows with the tiles
+     * that differ. StorageType.PACKED holds its layout in one array, which is
+     * copied whole on the first change to a wall or spawn. Dots are held apart
+     * from the layout in 64x64 pages shared the same way, so eating a dot
+     * only ever copies one small page. Like a copy, the snapshot starts with
+     * no recorded changes.
+     * @return a snapshot of this board
+     */
+    public PacmanBoard snapshot() {
+        return new PacmanBoard(this, storage.snapshot());
+    }
+
+    /*
+     * Works out the neighbour table, hash and junction table now, so that
+     * every snapshot taken afterwards shares them instead of each working
+     * them out for itself.
+     */
+    void prepareShared() {
+        if (neighbours == null && tablesNeighbours()) {
+            buildNeighbours();
+        }
+        getZobristHash();
+        if (getMazeDistanceFootprint() == 0) {
+            prepareMazeDistances();
+        }
+    }
+
+    /*
+     * Gets the item the storage holds for a tile holding the given item, the
+     * dots themselves are kept in the dot layer.
+     */
+    private static BoardItem layoutOf(BoardItem item) {
+        switch (item) {
+            case DOT:
+                return BoardItem.NONE;
+            case BIG_DOT:
+                return BoardItem.BIG_DOT_SPAWN;
+            default:
+                return item;
+        }
+    }
+
+    /*
+     * Gets the item at (x, y) from the layout and the dot layer.
+     * Requires: (x, y) is on the board.
+     */
+    BoardItem item(int x, int y) {
+        BoardItem layout = storage.get(x, y);
+        if (layout == BoardItem.NONE) {
+            return dots.get(x, y) ? BoardItem.DOT : BoardItem.NONE;
+        } else if (layout == BoardItem.BIG_DOT_SPAWN) {
+            return bigDots.get(x, y) ? BoardItem.BIG_DOT
+                    : BoardItem.BIG_DOT_SPAWN;
         }
+        return layout;
+    }
+
+    /*
+     * Creates a storage of the given type with every tile set to fill.
+     */
+    private static BoardStorage createStorage(StorageType type, int width,
+            int height, BoardItem fill) {
+        BoardStorage created;
+        switch (type) {
+            case CHUNKED:
+                // untouched chunks share the fill, no need to write it
+                return new ChunkedStorage(width, height, fill);
+            case OFF_HEAP:
+                created = new OffHeapStorage(width, height);
+                break;
+            case PACKED:
+                created = new PackedStorage(width, height);
+                break;
+            case ARRAY:
+            default:
+                created = new ArrayStorage(width, height);
+                break;
+        }
+        if (fill != BoardItem.NONE) {
+            for (int row = 0; row < height; row++) {
+                for (int column = 0; column < width; column++) {
+                    created.set(column, row, fill);
+                }
+            }
+        }
+        return created;
     }
 
     /**
@@ -85,8 +412,43 @@ public class PacmanBoard {
         return height;
     }
 
+    /**
+     * Gets the type of storage holding the tiles of this board.
+     * @return the storage type of the board
+     */
+    public StorageType getStorageType() {
+        return storage.getType();
+    }
+
+    /**
+     * Estimates the heap used to hold the tiles of this board, assuming a
+     * 64-bit JVM with compressed references. For a 2000x2000 board this is
+     * about 16MB for StorageType.ARRAY and 4MB for StorageType.PACKED. For
+     * StorageType.OFF_HEAP this is the memory used outside the heap. This
+     * does not include the dot layer, see getDotFootprint().
+     * @return the estimated size of the tile storage in bytes
+     */
+    public long getFootprint() {
+        return storage.footprint();
+    }
+
+    /**
+     * Estimates the heap used to hold the dots of this board, four bits per
+     * tile (dots, big dots and where each respawns) in 64x64 tile pages, with
+     * pages that are all set or all clear taking no memory of their own.
+     * @return the estimated size of the dot layer in bytes
+     */
+    public long getDotFootprint() {
+        return dots.footprint() + bigDots.footprint()
+                + dotRespawns.footprint() + bigDotRespawns.footprint();
+    }
+
     /**
      * Sets a tile on the board to an item.
+     * There is at most one PACMAN_SPAWN and one GHOST_SPAWN on a board, so
+     * placing a spawn replaces any spawn of the same type with NONE. A spawn
+     * of the other type is left where it is, placing a PACMAN_SPAWN no longer
+     * clears the GHOST_SPAWN as well.
      * @param position the position to place the item
      * @param item the board item that is to be placed at the position
      * @throws IndexOutOfBoundsException when the position trying to be set is
@@ -108,18 +470,81 @@ public class PacmanBoard {
         // Check if PacmanSpawn or GhostSpawn already exist, if so replace NONE
         switch (item) {
             case PACMAN_SPAWN:
-                if (getPacmanSpawn() != null) {
-                    Position currentPacman = getPacmanSpawn();
-                    setEntry(currentPacman, BoardItem.NONE);
+                if (pacmanSpawn != null) {
+                    place(pacmanSpawn.getX(), pacmanSpawn.getY(), BoardItem.NONE);
                 }
+                break;
             case GHOST_SPAWN:
-                if (getGhostSpawn() != null) {
-                    Position currentGhost = getGhostSpawn();
-                    setEntry(currentGhost, BoardItem.NONE);
+                if (ghostSpawn != null) {
+                    place(ghostSpawn.getX(), ghostSpawn.getY(), BoardItem.NONE);
                 }
+                break;
         }
         // Place tile on valid position
-        board[position.getY()][position.getX()] = item;
+        place(position.getX(), position.getY(), item);
+    }
+
+    /*
+     * Writes an item into the storage at (x, y), keeping the spawn index and
+     * dot counts in step with the tile that is replaced and the tile that is
+     * placed, and recording the tile in the change journal if it changed.
+     * Requires: (x, y) is on the board and item is not null.
+     */
+    private void place(int x, int y, BoardItem item) {
+        BoardItem previous = item(x, y);
+        if (previous == item) {
+            return;
+        }
+        int tile = y * width + x;
+        changes.record(tile);
+        if (zobristValid) {
+            zobrist ^= tileKey(tile, previous) ^ tileKey(tile, item);
+        }
+        switch (previous) {
+            case PACMAN_SPAWN:
+                pacmanSpawn = null;
+                break;
+            case GHOST_SPAWN:
+                ghostSpawn = null;
+                break;
+            case DOT:
+                remainingDots--;
+                break;
+            case BIG_DOT:
+                remainingBigDots--;
+                break;
+        }
+
+        BoardItem layout = layoutOf(item);
+        if (storage.get(x, y) != layout) {
+            storage.set(x, y, layout);
+        }
+        dots.set(x, y, item == BoardItem.DOT);
+        bigDots.set(x, y, item == BoardItem.BIG_DOT);
+        dotRespawns.set(x, y, layout == BoardItem.NONE);
+        bigDotRespawns.set(x, y, layout == BoardItem.BIG_DOT_SPAWN);
+        if (previous.getPathable() != item.getPathable()) {
+            if (neighbours != null) {
+                updateNeighbours(x, y, item.getPathable());
+            }
+            // the maze itself changed
+            junctions = null;
+            searchSource = -1;
+        }
+        switch (item) {
+            case PACMAN_SPAWN:
+                pacmanSpawn = new Position(x, y);
+                break;
+            case GHOST_SPAWN:
+                ghostSpawn = new Position(x, y);
+                break;
+            case DOT:
+                remainingDots++;
+                break;
+            case BIG_DOT:
+                remainingBigDots++;
+                break;
+        }
     }
 
     /**
@@ -133,13 +558,263 @@ public class PacmanBoard {
             throws IndexOutOfBoundsException, NullPointerException {
         if (position == null) {
             throw new NullPointerException();
-        } else if (position.getX() < 0 || position.getX() > width - 1) {
-            throw new IndexOutOfBoundsException();
-        } else if (position.getY() < 0 || position.getY() > height - 1) {
+        }
+        return getEntry(position.getX(), position.getY());
+    }
+
+    /**
+     * Returns what item the board has at the given coordinates, the same as
+     * getEntry(Position) without creating a Position.
+     * @param x column of the tile
+     * @param y row of the tile
+     * @return BoardItem at the location given.
+     * @throws IndexOutOfBoundsException when (x, y) is not within board.
+     */
+    public BoardItem getEntry(int x, int y) throws IndexOutOfBoundsException {
+        if (x < 0 || x > width - 1 || y < 0 || y > height - 1) {
             throw new IndexOutOfBoundsException();
         }
+        return item(x, y);
+    }
 
-        return board[position.getY()][position.getX()];
+    /**
+     * Checks if the tile at the given coordinates can be moved into.
+     * Unlike getEntry(Position) this never throws, any coordinates off the
+     * board are treated the same as a BoardItem.WALL.
+     * @param x column of the tile
+     * @param y row of the tile
+     * @return true if (x, y) is on the board and holds a pathable item.
+     */
+    public boolean isPathable(int x, int y) {
+        if (x < 0 || x > width - 1 || y < 0 || y > height - 1) {
+            return false;
+        }
+        return storage.get(x, y).getPathable();
+    }
+
+    /**
+     * Gets the directions that can be moved in from the tile at the given
+     * coordinates, as a mask of Direction.mask() bits. A direction is set if
+     * the tile one step in that direction isPathable. The tile itself does not
+     * need to be pathable.
+     * StorageType.ARRAY and StorageType.PACKED boards keep the mask of every
+     * tile in a table built on the first call, see getNeighbourFootprint().
+     * StorageType.OFF_HEAP and StorageType.CHUNKED boards work it out from
+     * the tiles around (x, y) on each call.
+     * @param x column of the tile
+     * @param y row of the tile
+     * @return the mask of directions with a pathable neighbour.
+     */
+    public int getNeighbours(int x, int y) {
+        if (x < 0 || x > width - 1 || y < 0 || y > height - 1) {
+            // not in the table, work it out
+            return findNeighbours(x, y);
+        }
+        if (neighbours == null) {
+            if (!tablesNeighbours()) {
+                return findNeighbours(x, y);
+            }
+            buildNeighbours();
+        }
+        return neighbours[y * width + x];
+    }
+
+    /**
+     * Gets the approximate memory used by the table of neighbour masks.
+     * @return the size of the neighbour table in bytes, or 0 if there is none.
+     */
+    public long getNeighbourFootprint() {
+        if (neighbours == null) {
+            return 0;
+        }
+        return 16 + (long) neighbours.length;
+    }
+
+    /*
+     * Checks if the neighbour masks are kept in a table of one byte per tile.
+     * StorageType.OFF_HEAP and StorageType.CHUNKED are there to keep large
+     * boards out of dense heap arrays, so they have no table.
+     */
+    private boolean tablesNeighbours() {
+        StorageType type = storage.getType();
+        return type == StorageType.ARRAY || type == StorageType.PACKED;
+    }
+
+    /*
+     * Works out the neighbour mask of (x, y) from the tiles around it.
+     */
+    private int findNeighbours(int x, int y) {
+        int mask = 0;
+        for (Direction direction : DIRECTIONS) {
+            if (isPathable(x + direction.getX(), y + direction.getY())) {
+                mask |= direction.mask();
+            }
+        }
+        return mask;
+    }
+
+    /*
+     * Fills the neighbour table for every tile on the board.
+     */
+    private void buildNeighbours() {
+        byte[] table = new byte[PackedStorage.tileCount(width, height)];
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                table[row * width + column] = (byte) findNeighbours(column, row);
+            }
+        }
+        neighbours = table;
+    }
+
+    /*
+     * Updates the neighbour masks of the tiles around (x, y) after (x, y)
+     * became pathable or stopped being pathable.
+     */
+    private void updateNeighbours(int x, int y, boolean pathable) {
+        if (neighboursShared) {
+            neighbours = neighbours.clone();
+            neighboursShared = false;
+        }
+        for (Direction direction : DIRECTIONS) {
+            int column = x + direction.getX();
+            int row = y + direction.getY();
+            if (column < 0 || column > width - 1 || row < 0 || row > height - 1) {
+                continue;
+            }
+            // from the neighbour, (x, y) is in the opposite direction
+            int bit = direction.opposite().mask();
+            int index = row * width + column;
+            if (pathable) {
+                neighbours[index] |= bit;
+            } else {
+                neighbours[index] &= ~bit;
+            }
+        }
+    }
+
+    /**
+     * Works out the walking distance from (x, y) to every tile on the board,
+     * moving only through pathable tiles. This is one pass over the board no
+     * matter how many times getDistance(int, int) is called afterwards, and the
+     * memory for it is reused between updates. The distances are not changed
+     * by later edits to the board until this is called again.
+     * @param x column of the tile to measure from
+     * @param y row of the tile to measure from
+     */
+    public void updateDistances(int x, int y) {
+        if (distances == null) {
+            distances = new DistanceField(width, height);
+        }
+        distances.compute(this, x, y);
+    }
+
+    /**
+     * Gets the walking distance to (x, y) from the tile given to the last
+     * call of updateDistances(int, int).
+     * @param x column of the tile
+     * @param y row of the tile
+     * @return the number of steps to (x, y), or -1 if it is off the board,
+     * cannot be walked to, or no distances have been worked out yet.
+     */
+    public int getDistance(int x, int y) {
+        if (distances == null) {
+            return DistanceField.UNREACHABLE;
+        }
+        return distances.get(x, y);
+    }
+
+    /**
+     * Releases the memory a StorageType.OFF_HEAP board holds outside the
+     * heap. After this any method reading or changing the tiles of the board
+     * throws IllegalStateException. Snapshots and copies taken before are not
+     * affected. Boards with their tiles on the heap are left to the garbage
+     * collector and are not changed by this.
+     */
+    public void close() {
+        storage.close();
+    }
+
+    /**
+     * Works out the junction table used by getMazeDistance(int, int, int, int)
+     * for the board as it is now, as long as it fits within
+     * MAX_JUNCTION_TABLE_BYTES. Once built, any tile to tile distance is found
+     * without searching. The table is kept until a tile stops or starts being
+     * pathable. It belongs to the layout of walls, so it is shared with every
+     * copy and snapshot of this board, taken before or after, that has not
+     * changed a wall since.
+     * @return true if the table was built, false if it was too big and
+     * distances will be searched for on demand.
+     */
+    public boolean prepareMazeDistances() {
+        return prepareMazeDistances(MAX_JUNCTION_TABLE_BYTES);
+    }
+
+    /**
+     * Works out the junction table used by getMazeDistance(int, int, int, int)
+     * for the board as it is now, as long as it fits within maxBytes.
+     * @param maxBytes the most memory, in bytes, the table can use
+     * @return true if the table was built, false if it was too big and
+     * distances will be searched for on demand.
+     */
+    public boolean prepareMazeDistances(long maxBytes) {
+        JunctionTable table = JunctionTable.build(this, maxBytes);
+        sharedJunctions().table = table;
+        return table != null;
+    }
+
+    /*
+     * Gets the junction holder of this board's layout, making one if there
+     * is none yet so that it can be shared.
+     */
+    private SharedJunctions sharedJunctions() {
+        if (junctions == null) {
+            junctions = new SharedJunctions();
+        }
+        return junctions;
+    }
+
+    /**
+     * Gets the approximate memory used by the junction table.
+     * @return the size of the junction table in bytes, or 0 if there is none.
+     */
+    public long getMazeDistanceFootprint() {
+        JunctionTable table = junctions == null ? null : junctions.table;
+        if (table == null) {
+            return 0;
+        }
+        return table.footprint();
+    }
+
+    /**
+     * Gets the walking distance between two tiles, moving only through
+     * pathable tiles. If prepareMazeDistances() has built a junction table
+     * this is found without searching, otherwise the board is searched from
+     * the first tile, and the search is reused while the first tile is the
+     * same.
+     * @param fromX column of the first tile
+     * @param fromY row of the first tile
+     * @param toX column of the second tile
+     * @param toY row of the second tile
+     * @return the number of steps between the tiles, or -1 if either is off
+     * the board or not pathable, or they are not connected.
+     */
+    public int getMazeDistance(int fromX, int fromY, int toX, int toY) {
+        JunctionTable table = junctions == null ? null : junctions.table;
+        if (table != null) {
+            return table.get(fromX, fromY, toX, toY);
+        }
+        if (!isPathable(fromX, fromY) || !isPathable(toX, toY)) {
+            return DistanceField.UNREACHABLE;
+        }
+        int source = fromY * width + fromX;
+        if (searches == null) {
+            searches = new DistanceField(width, height);
+        }
+        if (source != searchSource) {
+            searches.compute(this, fromX, fromY);
+            searchSource = source;
+        }
+        return searches.get(toX, toY);
     }
 
     /**
@@ -155,46 +830,36 @@ public class PacmanBoard {
      */
     public BoardItem eatDot(Position position)
             throws IndexOutOfBoundsException, NullPointerException {
-        // Check exceptions first
         if (position == null) {
             throw new NullPointerException();
-        } else if (position.getX() < 0 || position.getX() > width - 1) {
-            throw new IndexOutOfBoundsException();
-        } else if (position.getY() < 0 || position.getY() > height - 1) {
+        }
+        return eatDot(position.getX(), position.getY());
+    }
+
+    /**
+     * Tries to eat the dot at the given coordinates, the same as
+     * eatDot(Position) without creating a Position.
+     * @param x column of the tile to eat
+     * @param y row of the tile to eat
+     * @return the item that was originally at (x, y) before trying to eat.
+     * @throws IndexOutOfBoundsException when (x, y) is not within the board.
+     */
+    public BoardItem eatDot(int x, int y) throws IndexOutOfBoundsException {
+        if (x < 0 || x > width - 1 || y < 0 || y > height - 1) {
             throw new IndexOutOfBoundsException();
         }
 
         // Return items
-        switch (getEntry(position)) {
+        BoardItem item = item(x, y);
+        switch (item) {
             case DOT:
-                setEntry(position, BoardItem.NONE);
-                return BoardItem.DOT;
+                place(x, y, BoardItem.NONE);
+                break;
             case BIG_DOT:
-                setEntry(position, BoardItem.BIG_DOT_SPAWN);
-                return BoardItem.BIG_DOT;
-            default:
-                return getEntry(position);
+                place(x, y, BoardItem.BIG_DOT_SPAWN);
+                break;
         }
-    }
-
-    /**
-     * Returns the position of the spawn location on the board.
-     *      EDIT - Feedback from Assignment 1
-     *      (remove code duplication with getPacmanSpawn and getGhostSpawn)
-     * @param spawnType BoardItem.GHOST_SPAWN or BoardItem.PACMAN_SPAWN
-     * @return Position of spawn typle
-     */
-    private Position getSpawn(BoardItem spawnType) {
-        for (int column = 0; column < width; column++) {
-            for (int row = 0; row < height; row++) {
-                // Check each position for spawntype
-                if (board[row][column] == spawnType) {
-                    return new Position(column, row);
-                }
-            }
-        }
-        // No SPAWN found
-        return null;
+        return item;
     }
 
     /**
@@ -203,7 +868,7 @@ public class PacmanBoard {
      * @return the position of the ghost spawn or null if none found.
      */
     public Position getGhostSpawn() {
-        return getSpawn(BoardItem.GHOST_SPAWN);
+        return ghostSpawn;
     }
 
     /**
@@ -212,7 +877,7 @@ public class PacmanBoard {
      * @return the postion of pacmans spawn or null if none found.
      */
     public Position getPacmanSpawn() {
-        return getSpawn(BoardItem.PACMAN_SPAWN);
+        return pacmanSpawn;
     }
 
     /**
@@ -220,38 +885,104 @@ public class PacmanBoard {
      * @return true if the board does not contain any DOT's or BIG_DOT's.
      */
     public boolean isEmpty() {
-        for (int column = 0; column < width; column++) {
-            for (int row = 0; row < height; row++) {
-                // Check each position for DOT or BIG DOT
-                if (board[row][column] == BoardItem.DOT
-                        || board[row][column] == BoardItem.BIG_DOT) {
-                    return false;
-                }
-            }
-        }
-        // No DOT or BIG DOT in any board position
-        return true;
+        return remainingDots == 0 && remainingBigDots == 0;
+    }
+
+    /**
+     * Gets the number of DOT's left on the board.
+     * @return the amount of BoardItem.DOT on the board.
+     */
+    public int getRemainingDots() {
+        return remainingDots;
+    }
+
+    /**
+     * Gets the number of BIG_DOT's left on the board.
+     * @return the amount of BoardItem.BIG_DOT on the board.
+     */
+    public int getRemainingBigDots() {
+        return remainingBigDots;
     }
 
     /**
      * Resets the board to place a DOT in every position that has no item
      * (NONE BoardItem) and respawns BIG_DOT's in the BIG_DOT_SPAWN locations.
      * Leaves walls, pacman spawns and ghost spawns intact.
+     * This ORs the respawn masks into the dot layer 64 tiles at a time, only
+     * the dots that come back are looked at one by one.
      */
     public void reset() {
-
-        for (int column = 0; column < width; column++) {
-            for (int row = 0; row < height; row++) {
-                // Check each position for DOT or BIG DOT
-                if (board[row][column] == BoardItem.NONE) {
-                    board[row][column] = BoardItem.DOT;
-                } else if (board[row][column] == BoardItem.BIG_DOT_SPAWN) {
-                    board[row][column] = BoardItem.BIG_DOT;
+        int columns = dots.getColumns();
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < columns; column++) {
+                long addedDots = dots.include(dotRespawns, row, column);
+                long addedBigDots = bigDots.include(bigDotRespawns, row,
+                        column);
+                long added = addedDots | addedBigDots;
+                while (added != 0) {
+                    long bit = added & -added;
+                    int x = (column << TileBitSet.PAGE_SHIFT)
+                            + Long.numberOfTrailingZeros(bit);
+                    if ((addedDots & bit) != 0) {
+                        respawn(x, row, BoardItem.NONE, BoardItem.DOT);
+                    } else {
+                        respawn(x, row, BoardItem.BIG_DOT_SPAWN,
+                                BoardItem.BIG_DOT);
+                    }
+                    added ^= bit;
                 }
             }
         }
     }
 
+    /*
+     * Records a dot put back by reset, which has already set its bit.
+     */
+    private void respawn(int x, int y, BoardItem previous, BoardItem item) {
+        int tile = y * width + x;
+        changes.record(tile);
+        if (zobristValid) {
+            zobrist ^= tileKey(tile, previous) ^ tileKey(tile, item);
+        }
+        if (item == BoardItem.DOT) {
+            remainingDots++;
+        } else {
+            remainingBigDots++;
+        }
+    }
+
+    /**
+     * Gets the cursor of the change journal. Giving this cursor to
+     * getChangesSince(long) later returns the tiles changed in between, so
+     * each reader of the board can keep its own cursor. Changes are only
+     * recorded once a cursor has been taken.
+     * @return the current change cursor
+     */
+    public long getChangeCursor() {
+        return changes.cursor();
+    }
+
+    /**
+     * Gets the tiles changed by setEntry, eatDot or reset since the given
+     * cursor, oldest first. Only changes to a different item are recorded.
+     * Each tile is packed as y * getWidth() + x. The board only holds a
+     * limited number of changes, and none from before a copy was made.
+     * @param cursor from a previous call to getChangeCursor()
+     * @return the tiles changed since the cursor, or null if the board no
+     * longer holds all of those changes and the whole board should be re-read.
+     */
+    public int[] getChangesSince(long cursor) {
+        return changes.since(cursor);
+    }
+
+    /**
+     * Forgets all recorded changes. Readers with a cursor from before this
+     * call will be told to re-read the whole board.
+     */
+    public void clearChanges() {
+        changes.clear();
+    }
+
     /**
      * Creates a multiline string ( using System.lineSeparator() as newline )
      * that is a printout of each index of the board with the character key.
@@ -265,17 +996,47 @@ public class PacmanBoard {
      */
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-        for (int y = 0; y < getHeight(); y++) {
-            for (int x = 0; x < getWidth(); x++) {
-                sb.append(board[y][x].getChar());
+        // one char per tile plus a line separator per row
+        StringBuilder sb = new StringBuilder(height
+                * (width + System.lineSeparator().length()));
+        try {
+            writeTo(sb);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the same text as toString() to out, one row at a time, so the
+     * whole board is never held as a single string. Only one row of
+     * characters is buffered at any time.
+     * @param out to write the board to
+     * @throws IOException if out cannot be written to
+     * @throws NullPointerException if out is null
+     */
+    public void writeTo(Appendable out) throws IOException {
+        if (out == null) {
+            throw new NullPointerException();
+        }
+        char[] row = new char[width];
+        CharBuffer rowText = CharBuffer.wrap(row);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = item(x, y).getChar();
+            }
+            if (out instanceof Writer) {
+                // straight from the array, no string made for the row
+                ((Writer) out).write(row);
+            } else {
+                out.append(rowText, 0, width);
             }
             // Reached end of row, add line but not for the last line
-            if (y != getHeight() - 1) {
-                sb.append(System.lineSeparator());
+            if (y != height - 1) {
+                out.append(System.lineSeparator());
             }
         }
-        return sb.toString();
     }
 
     /**
@@ -295,10 +1056,14 @@ public class PacmanBoard {
         if (!(this.width == other.width) || !(this.height == other.height)) {
             return false;
         }
+        // Different hashes can only come from different tiles
+        if (this.getZobristHash() != other.getZobristHash()) {
+            return false;
+        }
         // Check board entries are ALL equal
         for (int y = 0; y < getHeight(); y++) {
             for (int x = 0; x < getWidth(); x++) {
-                if (this.board[x][y] != (other.getEntry(new Position(x, y)))) {
+                if (this.item(x, y) != other.item(x, y)) {
                     return false;
                 }
             }
@@ -310,19 +1075,57 @@ public class PacmanBoard {
     /**
      * For two objects that are equal the hash should also be equal.
      * For two objects that are not equal the hash does not have to be different.
+     * The hash is kept up to date as the board changes, so this does not
+     * look at the tiles (see getZobristHash()).
      * @return hash of PacmanBoard
      */
     @Override
     public int hashCode() {
-        // Hashcode unique. Same hashcode only when same dimensions and entries
-        int hash = 2;
-        hash = 3 * hash * this.width;
-        hash = 5 * hash * this.height;
-        for (int y = 0; y < getHeight(); y++) {
-            for (int x = 0; x < getWidth(); x++) {
-                hash = 7 * (hash + x - y + this.board[x][y].getChar());
+        long hash = getZobristHash();
+        return (int) (hash ^ (hash >>> 32)) ^ (31 * width + height);
+    }
+
+    /**
+     * Gets a 64-bit Zobrist hash of the tiles of the board, the XOR of a fixed
+     * random key for each tile and the item in it. Boards with equal tiles
+     * always have the same hash, and boards with different tiles almost never
+     * do. The first call looks at every tile, after that the hash is updated
+     * as each tile changes so this takes the same time however big the board.
+     * @return the Zobrist hash of the board
+     */
+    public long getZobristHash() {
+        if (!zobristValid) {
+            long hash = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    hash ^= tileKey(y * width + x, item(x, y));
+                }
             }
+            zobrist = hash;
+            zobristValid = true;
         }
-        return hash;
+        return zobrist;
+    }
+
+    /*
+     * Gets the Zobrist key of an item in a packed tile index. Rather than a
+     * table of random keys, each (tile, item) pair is mixed with the splitmix64
+     * finaliser, which gives the same well spread keys for any size of board.
+     */
+    private static long tileKey(int tile, BoardItem item) {
+        long key = ((long) tile * ITEM_COUNT + item.ordinal() + 1)
+                * 0x9E3779B97F4A7C15L;
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return key ^ (key >>> 31);
+    }
+
+    /*
+     * The junction table of one layout of walls, shared by every board with
+     * that layout. Boards on other threads, such as MapTemplate sessions, may
+     * fill it in, so the table is published through a volatile field.
+     */
+    private static final class SharedJunctions {
+        volatile JunctionTable table;
     }
 }
@@ -0,0 +1,22 @@
+package pacman.board;
+
+/**
+ * StorageType defines the different ways a PacmanBoard can hold its tiles.
+ *      "ARRAY" - One BoardItem reference per tile, stored row by row.
+ *      "PACKED" - One byte per tile (the BoardItem ordinal) in a single flat
+ *      row-major array. Roughly a quarter of the memory of ARRAY on large
+ *      boards and much friendlier to the cache when scanning the board.
+ *      "CHUNKED" - One byte per tile in 64x64 tile chunks. A chunk only gets
+ *      memory of its own the first time a tile in it is changed, until then
+ *      it shares a prototype chunk with every tile the same. Best for very
+ *      large maps where most of the area never changes.
+ *      "OFF_HEAP" - One byte per tile in a single buffer outside the Java
+ *      heap, so huge boards do not add to heap size or garbage collection.
+ *      Boards compiled with BoardFile are mapped straight from the file.
+ */
+public enum StorageType {
+    ARRAY,
+    PACKED,
+    CHUNKED,
+    OFF_HEAP
+}
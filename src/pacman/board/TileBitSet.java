@@ -0,0 +1,232 @@
+package pacman.board;
+
+import java.util.Arrays;
+
+/**
+ * One bit per tile of a board, held in square pages of PAGE_SIZE by PAGE_SIZE
+ * tiles with one long per row of a page. Pages where every bit is clear or
+ * every bit is set are shared, read-only prototypes until first changed, and
+ * snapshots share pages until either side writes to them, the same as
+ * ChunkedStorage. Bits for tiles off the board are always clear.
+ */
+class TileBitSet {
+    // pages are 64 by 64 tiles, one long per row
+    static final int PAGE_SHIFT = 6;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    // shared prototypes, never written
+    private static final long[] CLEAR = new long[PAGE_SIZE];
+    private static final long[] FULL = new long[PAGE_SIZE];
+
+    static {
+        Arrays.fill(FULL, -1L);
+    }
+
+    private final int columns;
+    private long[][] pages;
+
+    // true once this set has been snapshot or is a snapshot, the page table
+    // is shared while tableShared and a page is shared until it is owned
+    private boolean copyOnWrite;
+    private boolean tableShared;
+    private boolean[] ownedPages;
+
+    /**
+     * Creates a set for a board of the given size.
+     * @param width number of columns
+     * @param height number of rows
+     * @param filled true to start with the bit of every tile set, false to
+     * start with every bit clear
+     */
+    TileBitSet(int width, int height, boolean filled) {
+        this.columns = (width + PAGE_MASK) >> PAGE_SHIFT;
+        int rows = (height + PAGE_MASK) >> PAGE_SHIFT;
+        this.pages = new long[columns * rows][];
+        Arrays.fill(pages, filled ? FULL : CLEAR);
+        if (filled) {
+            // pages hanging over the right or bottom edge only set the bits
+            // of tiles on the board
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    int across = Math.min(PAGE_SIZE,
+                            width - (column << PAGE_SHIFT));
+                    int down = Math.min(PAGE_SIZE,
+                            height - (row << PAGE_SHIFT));
+                    if (across < PAGE_SIZE || down < PAGE_SIZE) {
+                        long[] page = new long[PAGE_SIZE];
+                        Arrays.fill(page, 0, down,
+                                across == PAGE_SIZE ? -1L : (1L << across) - 1);
+                        pages[row * columns + column] = page;
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Creates a set that owns the given pages.
+     */
+    private TileBitSet(int columns, long[][] pages) {
+        this.columns = columns;
+        this.pages = pages;
+    }
+
+    /**
+     * Gets the number of pages across the board, each covering PAGE_SIZE
+     * columns.
+     * @return the number of page columns
+     */
+    int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Checks the bit of a tile.
+     * @param x column of the tile
+     * @param y row of the tile
+     * @return true if the bit is set
+     */
+    boolean get(int x, int y) {
+        long[] page = pages[(y >> PAGE_SHIFT) * columns + (x >> PAGE_SHIFT)];
+        return (page[y & PAGE_MASK] & (1L << (x & PAGE_MASK))) != 0;
+    }
+
+    /**
+     * Sets or clears the bit of a tile. A page is only copied if the bit
+     * actually changes.
+     * @param x column of the tile
+     * @param y row of the tile
+     * @param value true to set the bit, false to clear it
+     */
+    void set(int x, int y, boolean value) {
+        int index = (y >> PAGE_SHIFT) * columns + (x >> PAGE_SHIFT);
+        long bit = 1L << (x & PAGE_MASK);
+        long word = pages[index][y & PAGE_MASK];
+        if (((word & bit) != 0) == value) {
+            return;
+        }
+        writable(index)[y & PAGE_MASK] = word ^ bit;
+    }
+
+    /**
+     * Sets every bit in one word (PAGE_SIZE tiles of a row) that is set in
+     * the same word of mask, a single long OR.
+     * @param mask set of the same size to take bits from
+     * @param y row of the word
+     * @param column page column of the word
+     * @return the bits that were newly set, bit i is the tile at
+     * (column * PAGE_SIZE + i, y).
+     */
+    long include(TileBitSet mask, int y, int column) {
+        int index = (y >> PAGE_SHIFT) * columns + column;
+        long[] from = mask.pages[index];
+        long[] page = pages[index];
+        if (from == CLEAR || page == FULL || from == page) {
+            // nothing can be added
+            return 0;
+        }
+        long added = from[y & PAGE_MASK] & ~page[y & PAGE_MASK];
+        if (added != 0) {
+            writable(index)[y & PAGE_MASK] |= added;
+        }
+        return added;
+    }
+
+    /**
+     * Sets every bit in one word (PAGE_SIZE tiles of a row) that is set in
+     * bits, a single long OR.
+     * @param y row of the word
+     * @param column page column of the word
+     * @param bits bit i is the tile at (column * PAGE_SIZE + i, y)
+     */
+    void or(int y, int column, long bits) {
+        int index = (y >> PAGE_SHIFT) * columns + column;
+        if ((bits & ~pages[index][y & PAGE_MASK]) != 0) {
+            writable(index)[y & PAGE_MASK] |= bits;
+        }
+    }
+
+    /*
+     * Gets a page that belongs to this set alone, copying it (and the page
+     * table) first if it is a prototype or shared with a snapshot.
+     */
+    private long[] writable(int index) {
+        long[] page = pages[index];
+        if (page == CLEAR || page == FULL
+                || copyOnWrite && (tableShared || !ownedPages[index])) {
+            page = page.clone();
+            if (tableShared) {
+                pages = pages.clone();
+                ownedPages = new boolean[pages.length];
+                tableShared = false;
+            }
+            pages[index] = page;
+            if (copyOnWrite) {
+                ownedPages[index] = true;
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Counts the set bits, a popcount of every word.
+     * @return the number of tiles with their bit set
+     */
+    int count() {
+        int count = 0;
+        for (long[] page : pages) {
+            if (page == CLEAR) {
+                continue;
+            }
+            for (long word : page) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates a deep copy of this set, only the prototypes are shared.
+     * @return a copy of this set
+     */
+    TileBitSet copy() {
+        long[][] copy = new long[pages.length][];
+        for (int index = 0; index < pages.length; index++) {
+            long[] page = pages[index];
+            copy[index] = page == CLEAR || page == FULL ? page : page.clone();
+        }
+        return new TileBitSet(columns, copy);
+    }
+
+    /**
+     * Creates a copy of this set that shares its pages with this one until
+     * either is written to.
+     * @return a copy of this set sharing its pages
+     */
+    TileBitSet snapshot() {
+        // from now on neither side owns any of the pages
+        copyOnWrite = true;
+        tableShared = true;
+        ownedPages = null;
+        TileBitSet snapshot = new TileBitSet(columns, pages);
+        snapshot.copyOnWrite = true;
+        snapshot.tableShared = true;
+        return snapshot;
+    }
+
+    /**
+     * Estimates the heap used by this set, prototypes are not counted as they
+     * are shared by every set.
+     * @return the estimated size of the set in bytes
+     */
+    long footprint() {
+        long bytes = 16 + 4L * pages.length;
+        for (long[] page : pages) {
+            if (page != CLEAR && page != FULL) {
+                bytes += 16 + 8L * PAGE_SIZE;
+            }
+        }
+        return bytes;
+    }
+}
@@ -28,6 +28,10 @@ public class BoardView {
     private static final int DOT_SIZE = 4;
     private static final int BIG_DOT_SIZE = DOT_SIZE * 3;
 
+    // tiles, parsed once rather than for every tile of every frame
+    private static final Color WALL_COLOUR = Color.web("#3A3770");
+    private static final Color GHOST_SPAWN_COLOUR = Color.web("#AA3770");
+
     // Lives
     private static final int LIVES_SIZE = 24;
     private static final int LIVES_X_LOC = 30;
@@ -37,6 +41,9 @@ public class BoardView {
     // Level
     private static final int LEVEL_X_LOC = 650;
 
+    // Dots left
+    private static final int DOTS_X_LOC = 330;
+
     // Pacman
     private static final int PACMAN_ARC_START = 30;
     private static final int PACMAN_ARC_STOP = 360 - PACMAN_ARC_START * 2;
@@ -86,6 +93,7 @@ public class BoardView {
         drawCanvas(context);
         drawLives(context);
         drawLevel(context);
+        drawDotsLeft(context);
         drawBoard(context, offset);
         drawPacman(context, offset);
         for (Pair<Position, String> ghost : viewModel.getGhosts()) {
@@ -124,6 +132,16 @@ public class BoardView {
                 LEVEL_X_LOC, LIVES_Y_LOC + 20);
     }
 
+    /*
+     * Draws the number of dots left in the level using the given context.
+     */
+    private void drawDotsLeft(GraphicsContext gc) {
+        gc.setFill(Color.WHITE);
+        gc.setFont(new Font(32));
+        gc.fillText(String.format("Dots %d", viewModel.getDotsLeft()),
+                DOTS_X_LOC, LIVES_Y_LOC + 20);
+    }
+
     /*
      * Draws the board of the game on the given context applying the
      * offset given to each point.
@@ -133,32 +151,30 @@ public class BoardView {
 
         for (int x = 0; x < board.getWidth(); x++) {
             for (int y = 0; y < board.getHeight(); y++) {
-                Position point = new Position(x, y).multiply(BLOCK_SIZE)
-                        .add(offset);
+                int pointX = x * BLOCK_SIZE + offset.getX();
+                int pointY = y * BLOCK_SIZE + offset.getY();
 
-                switch (board.getEntry(new Position(x, y))) {
+                switch (board.getEntry(x, y)) {
                     case WALL:
-                        gc.setFill(Color.web("#3A3770"));
-                        gc.fillRect(point.getX(), point.getY(), BLOCK_SIZE,
-                                BLOCK_SIZE);
+                        gc.setFill(WALL_COLOUR);
+                        gc.fillRect(pointX, pointY, BLOCK_SIZE, BLOCK_SIZE);
                         break;
                     case DOT:
                         gc.setFill(Color.YELLOW);
-                        gc.fillRect(point.getX() + (BLOCK_SIZE - DOT_SIZE) / 2,
-                                point.getY() + (BLOCK_SIZE - DOT_SIZE) / 2,
+                        gc.fillRect(pointX + (BLOCK_SIZE - DOT_SIZE) / 2,
+                                pointY + (BLOCK_SIZE - DOT_SIZE) / 2,
                                 DOT_SIZE, DOT_SIZE);
                         break;
                     case BIG_DOT:
                         gc.setFill(Color.YELLOW);
                         gc.fillRoundRect(
-                                point.getX() + (BLOCK_SIZE - BIG_DOT_SIZE) / 2,
-                                point.getY() + (BLOCK_SIZE - BIG_DOT_SIZE) / 2,
+                                pointX + (BLOCK_SIZE - BIG_DOT_SIZE) / 2,
+                                pointY + (BLOCK_SIZE - BIG_DOT_SIZE) / 2,
                                 BIG_DOT_SIZE, BIG_DOT_SIZE, 16, 16);
                         break;
                     case GHOST_SPAWN:
-                        gc.setFill(Color.web("#AA3770"));
-                        gc.fillRect(point.getX(), point.getY(), BLOCK_SIZE,
-                                BLOCK_SIZE);
+                        gc.setFill(GHOST_SPAWN_COLOUR);
+                        gc.fillRect(pointX, pointY, BLOCK_SIZE, BLOCK_SIZE);
                         break;
                 }
             }
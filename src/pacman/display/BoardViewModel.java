@@ -45,6 +45,16 @@ public class BoardViewModel {
         return model.getLevel();
     }
 
+    /**
+     * Returns the number of pickup items (DOT's and BIG_DOT's) that are still
+     * left on the board in the current level.
+     * @return the number of dots left to eat
+     */
+    public int getDotsLeft() {
+        PacmanBoard board = model.getBoard();
+        return board.getRemainingDots() + board.getRemainingBigDots();
+    }
+
     /**
      * Returns a colour string to represent how the hunter should be displayed.
      * If game's hunter special is active it should return "#CDC3FF",
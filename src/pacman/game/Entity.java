@@ -8,6 +8,9 @@ import pacman.util.Position;
  * game board and interact with other entities.
  */
 public abstract class Entity implements Moveable {
+    // coordinates packed with Position.pack(int, int)
+    private long packed;
+    // created from packed when first asked for, null until then
     private Position position;
     private Direction direction;
 
@@ -15,7 +18,7 @@ public abstract class Entity implements Moveable {
      * Creates an entity that is at position (0, 0) and is facing UP.
      */
     public Entity() {
-        this.position = new Position(0, 0);
+        this.packed = Position.pack(0, 0);
         this.direction = Direction.UP;
     }
 
@@ -30,9 +33,10 @@ public abstract class Entity implements Moveable {
     public Entity(Position position, Direction direction) {
 
         if (position != null) {
+            this.packed = position.pack();
             this.position = position;
         } else {
-            this.position = new Position(0, 0);
+            this.packed = Position.pack(0, 0);
         }
 
         if (direction != null) {
@@ -49,6 +53,9 @@ public abstract class Entity implements Moveable {
      */
     @Override
     public Position getPosition() {
+        if (position == null) {
+            position = Position.unpack(packed);
+        }
         return position;
     }
 
@@ -60,10 +67,33 @@ public abstract class Entity implements Moveable {
     @Override
     public void setPosition(Position position) {
         if (position != null) {
+            this.packed = position.pack();
             this.position = position;
         }
     }
 
+    /**
+     * Gets the current position packed by Position.pack(int, int), without
+     * creating a Position.
+     * @return the packed coordinates of the entity.
+     */
+    public long getPackedPosition() {
+        return packed;
+    }
+
+    /**
+     * Sets the position of the entity from coordinates packed by
+     * Position.pack(int, int). No Position is created until getPosition() is
+     * next called.
+     * @param packed coordinates to move the entity to.
+     */
+    public void setPackedPosition(long packed) {
+        if (packed != this.packed) {
+            this.packed = packed;
+            this.position = null;
+        }
+    }
+
     /**
      * Gets the direction that this Moveable is facing.
      * @since getDirection in interface Moveable
@@ -97,9 +127,8 @@ public abstract class Entity implements Moveable {
             return false;
         }
         Entity other = (Entity) o;
-        return this.position.getX() == other.position.getX()
-                && this.position.getY() == other.position.getY()
-                && this.direction == other.direction;
+        return getPackedPosition() == other.getPackedPosition()
+                && getDirection() == other.getDirection();
     }
 
     /**
@@ -109,9 +138,10 @@ public abstract class Entity implements Moveable {
      */
     @Override
     public int hashCode() {
-        return this.position.getX() * 2
-                + this.position.getY() * 5
-                + this.direction.hashCode();
+        long packed = getPackedPosition();
+        return Position.unpackX(packed) * 2
+                + Position.unpackY(packed) * 5
+                + getDirection().hashCode();
     }
 
     /**
@@ -122,8 +152,9 @@ public abstract class Entity implements Moveable {
      */
     @Override
     public String toString() {
-        return this.position.toString()
+        long packed = getPackedPosition();
+        return Position.unpackX(packed) + "," + Position.unpackY(packed)
                 + ","
-                + this.direction;
+                + getDirection();
     }
 }
\ No newline at end of file
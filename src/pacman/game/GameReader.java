@@ -43,22 +43,27 @@ public class GameReader {
         // 0 - Board, 1 - Empty, 2 - Game, 3 - Empty, 4 - Score
         int currentStage = 0;
         try {
-            for (String line = br.readLine(); line != null; line = br.readLine()) {
+            String line = br.readLine();
+            while (line != null) {
+                // the line after this one, unless a block has already read it
+                String next = null;
                 // There must be no empty lines before the first block
                 if (line.equals(System.lineSeparator()) || line.equals("")) {
                     // In between blocks there must be a single blank line.
                     currentStage++;
                 } else if (line.charAt(0) == ';') {
                     // any lines starting with a ';' are comments and are skipped
-                    continue;
                 } else if (line.equals("[Board]") && currentStage == 0) {
                     // Board found first
                     board = readBoard(br);
                     // Board complete, move to next stage
                     currentStage++;
                 } else if (line.equals("[Game]") && currentStage == 2) {
-                    // Game found second
-                    game = readGame(game,board,hunter,br);
+                    // Game found second, the line that ends it is dealt
+                    // with as the next line of the file
+                    List<String> assignments = new ArrayList<>();
+                    next = readBlock(br, assignments);
+                    game = readGame(game,board,hunter,assignments);
                     // Game done, move to next stage
                     currentStage++;
                 } else if (line.equals("[Scores]") && currentStage == 4) {
@@ -70,6 +75,7 @@ public class GameReader {
                     // Blocks not in order or extra spaces between
                     throw new UnpackableException();
                 }
+                line = next != null ? next : br.readLine();
             }
 
         } catch (Exception e) {
@@ -137,16 +143,20 @@ public class GameReader {
 
     /**
      * Read [Game] block of the board and assign all parameters
+     * The ghosts are either the four classic assignments (blinky, inky, pinky,
+     * clyde) or a roster of any number of ghosts, given as 'ghosts = N'
+     * followed by N 'ghost = x,y,DIRECTION,PHASE:PhaseDuration,GhostType'
+     * assignments in roster order. The two cannot be mixed.
      * @param game being read
      * @param board for this game instance
      * @param hunter for this game instance
-     * @param br to read line at a time
+     * @param lines of the block, see readBlock(BufferedReader, List)
      * @return the game with all assignments set with new given parameters
      * @throws UnpackableException when data is invalid
      * @throws IOException if game cannot be read
      */
     // TODO: 11/25/19 Shorten method
-    private static PacmanGame readGame(PacmanGame game, PacmanBoard board, Hunter hunter, BufferedReader br) throws
+    private static PacmanGame readGame(PacmanGame game, PacmanBoard board, Hunter hunter, List<String> lines) throws
             UnpackableException, IOException {
 
         // Contains newline separated list of assignments
@@ -156,79 +166,130 @@ public class GameReader {
         int lives = 4;
         int level = 0;
         int score = 0;
-        Blinky blinky = new Blinky();
-        Inky inky = new Inky();
-        Pinky pinky = new Pinky();
-        Clyde clyde = new Clyde();
-
-        // Use gameCount to keep track of how many assignments there are
-        int gameCount = 0;
+        // the line of each classic ghost, by key
+        Map<String, String[]> classic = new HashMap<>();
+        // the declared roster size, and each roster ghost with its line
+        int rosterSize = -1;
+        List<Ghost> roster = new ArrayList<>();
+        List<String[]> rosterLines = new ArrayList<>();
+
+        // Every key but ghost may only be given once
+        Set<String> keys = new HashSet<>();
         // An assignment is a 'Key = Value' where the Key and Value
-        for (int i = 0; i < 10; i++) {
-            String assignments = br.readLine();
+        for (String assignments : lines) {
             String[] valueArray = assignments.split(" = ");
+            isInvalid(!valueArray[0].equals("ghost")
+                    && !keys.add(valueArray[0]));
             switch (valueArray[0]) {
                 case "title":
                     title = valueArray[1];
-                    gameCount += 1;
                     break;
                 case "author":
                     author = valueArray[1];
-                    gameCount += 2;
                     break;
                 case "lives":
                     lives = Integer.parseInt(valueArray[1]);
                     isInvalid(lives < 0);
-                    gameCount += 3;
                     break;
                 case "level":
                     level = Integer.parseInt(valueArray[1]);
                     isInvalid(level < 0);
-                    gameCount += 4;
                     break;
                 case "score":
                     score = Integer.parseInt(valueArray[1]);
                     isInvalid(score < 0);
-                    gameCount += 5;
                     break;
                 case "hunter":
                     hunter = readHunter(valueArray, hunter, board);
-                    gameCount += 6;
                     break;
                 case "blinky":
-                    blinky = (Blinky) readGhost(valueArray, new Blinky(), board);
-                    gameCount += 7;
-                    break;
                 case "inky":
-                    inky = (Inky) readGhost(valueArray, new Inky(), board);
-                    gameCount += 8;
-                    break;
                 case "pinky":
-                    pinky = (Pinky) readGhost(valueArray, new Pinky(), board);
-                    gameCount += 9;
-                    break;
                 case "clyde":
-                    clyde = (Clyde) readGhost(valueArray, new Clyde(), board);
-                    gameCount += 10;
+                    classic.put(valueArray[0], valueArray);
+                    break;
+                case "ghosts":
+                    rosterSize = Integer.parseInt(valueArray[1]);
+                    isInvalid(rosterSize < 0);
                     break;
+                case "ghost":
+                    // the type is the last attribute, the rest is as classic
+                    int comma = valueArray[1].lastIndexOf(',');
+                    roster.add(newGhost(GhostType.valueOf(
+                            valueArray[1].substring(comma + 1))));
+                    rosterLines.add(new String[] {valueArray[0],
+                            valueArray[1].substring(0, comma)});
+                    break;
+                default:
+                    throw new UnpackableException();
             }
         }
 
-        isInvalid(gameCount != 55);
-        // There are 10 assignments of each, so setup game
-        game = new PacmanGame(title, author, hunter, board);
+        // title, author, lives, level, score and hunter are all needed, with
+        // either all four classic ghosts or a roster of the declared size
+        boolean classicGhosts = classic.size() == 4 && rosterSize == -1
+                && roster.isEmpty();
+        isInvalid(!classicGhosts
+                && !(classic.isEmpty() && rosterSize == roster.size()));
+        isInvalid(keys.size() != (classicGhosts ? 10 : 7));
+        if (classicGhosts) {
+            roster.add(new Blinky());
+            roster.add(new Inky());
+            roster.add(new Pinky());
+            roster.add(new Clyde());
+            rosterLines.add(classic.get("blinky"));
+            rosterLines.add(classic.get("inky"));
+            rosterLines.add(classic.get("pinky"));
+            rosterLines.add(classic.get("clyde"));
+        }
+
+        // The game spawns its ghosts, so their state is set afterwards
+        game = new PacmanGame(title, author, hunter, board, roster);
         game.setLevel(level);
         game.setLives(lives);
         game.getScores().increaseScore(score);
-        List<Ghost> ghostList = game.getGhosts();
-        ghostList.set(0, blinky);
-        ghostList.set(1, inky);
-        ghostList.set(2, pinky);
-        ghostList.set(3, clyde);
+        for (int i = 0; i < roster.size(); i++) {
+            readGhost(rosterLines.get(i), roster.get(i), board);
+        }
 
         return game;
     }
 
+    /**
+     * Reads the lines of a block up to the first blank line or comment.
+     * @param br to read line at a time
+     * @param lines to add each line of the block to
+     * @return the line that ended the block, or null at the end of the file
+     * @throws IOException if the block cannot be read
+     */
+    private static String readBlock(BufferedReader br, List<String> lines)
+            throws IOException {
+        String line = br.readLine();
+        while (line != null && !line.equals("") && line.charAt(0) != ';') {
+            lines.add(line);
+            line = br.readLine();
+        }
+        return line;
+    }
+
+    /**
+     * Create a new ghost of the given type
+     * @param type of ghost to create
+     * @return a new ghost of that type
+     */
+    private static Ghost newGhost(GhostType type) {
+        switch (type) {
+            case BLINKY:
+                return new Blinky();
+            case INKY:
+                return new Inky();
+            case PINKY:
+                return new Pinky();
+            default:
+                return new Clyde();
+        }
+    }
+
     /**
      * Read and set the conditions for the hunter according to the file
      * @param valueArray of all assignments in the game
@@ -290,7 +351,7 @@ public class GameReader {
     private static Ghost readGhost(String[] valueArray, Ghost ghost, PacmanBoard board)
             throws UnpackableException {
 
-        // blinky|inky|pinky|clyde
+        // blinky|inky|pinky|clyde|ghost
         // A comma separated list of attributes in the following order:
         //x,y,DIRECTION,PHASE:PhaseDuration
         String[] ghostArray = valueArray[1].split(",");
@@ -1,6 +1,7 @@
 package pacman.game;
 
 import pacman.ghost.Ghost;
+import pacman.ghost.GhostType;
 
 import java.io.IOException;
 import java.io.Writer;
@@ -18,72 +19,95 @@ public class GameWriter {
      * @throws IOException during an issue with saving to the file
      */
     public static void write(Writer writer, PacmanGame game) throws IOException {
-        StringBuilder builder = new StringBuilder();
-
+        // Everything is written straight to the writer, the board a row at a
+        // time, so a large board is never held in memory as one string
         //The first line of the file will be the Board block header: "[Board]".
-        builder.append("[Board]");
-        builder.append(System.lineSeparator());
+        writer.write("[Board]");
+        writer.write(System.lineSeparator());
         // Following this on the line below will be the width and height comma
         // separated with no leading zeros and no spaces.
-        builder.append(game.getBoard().getWidth() + "," + game.getBoard().getHeight());
-        builder.append(System.lineSeparator());
+        writer.write(game.getBoard().getWidth() + "," + game.getBoard().getHeight());
+        writer.write(System.lineSeparator());
         // After this on the next line is the Game Board which is to be the
         // toString representation of the board.
-        builder.append(game.getBoard().toString());
-        builder.append(System.lineSeparator());
+        game.getBoard().writeTo(writer);
+        writer.write(System.lineSeparator());
 
         // One blank line
-        builder.append(System.lineSeparator());
+        writer.write(System.lineSeparator());
 
         // On the next line is the "[Game]" block which will output the
         // following assignments in order: title, author, lives, level, score,
         // hunter, blinky, inky, pinky, clyde
         // The assignments are to have single space before and after equals sign.
         // Each assignment is to be on its own line.
-        builder.append("[Game]");
-        builder.append(System.lineSeparator());
-        builder.append("title = " + game.getTitle());
-        builder.append(System.lineSeparator());
-        builder.append("author = " + game.getAuthor());
-        builder.append(System.lineSeparator());
-        builder.append("lives = " + game.getLives());
-        builder.append(System.lineSeparator());
-        builder.append("level = " + game.getLevel());
-        builder.append(System.lineSeparator());
-        builder.append("score = " + game.getScores().getScore());
-        builder.append(System.lineSeparator());
+        writer.write("[Game]");
+        writer.write(System.lineSeparator());
+        writer.write("title = " + game.getTitle());
+        writer.write(System.lineSeparator());
+        writer.write("author = " + game.getAuthor());
+        writer.write(System.lineSeparator());
+        writer.write("lives = " + game.getLives());
+        writer.write(System.lineSeparator());
+        writer.write("level = " + game.getLevel());
+        writer.write(System.lineSeparator());
+        writer.write("score = " + game.getScores().getScore());
+        writer.write(System.lineSeparator());
         // The assignments for ( hunter, blinky, inky, pinky, clyde) are to be
         // the toString representation of these entities.
-        builder.append("hunter = " + game.getHunter().toString());
-        builder.append(System.lineSeparator());
+        writer.write("hunter = " + game.getHunter().toString());
+        writer.write(System.lineSeparator());
         List<Ghost> ghostList = game.getGhosts();
-        builder.append("blinky = " + ghostList.get(0).toString());
-        builder.append(System.lineSeparator());
-        builder.append("inky = " + ghostList.get(1).toString());
-        builder.append(System.lineSeparator());
-        builder.append("pinky = " + ghostList.get(2).toString());
-        builder.append(System.lineSeparator());
-        builder.append("clyde = " + ghostList.get(3).toString());
-        builder.append(System.lineSeparator());
+        if (isClassic(ghostList)) {
+            writer.write("blinky = " + ghostList.get(0).toString());
+            writer.write(System.lineSeparator());
+            writer.write("inky = " + ghostList.get(1).toString());
+            writer.write(System.lineSeparator());
+            writer.write("pinky = " + ghostList.get(2).toString());
+            writer.write(System.lineSeparator());
+            writer.write("clyde = " + ghostList.get(3).toString());
+            writer.write(System.lineSeparator());
+        } else {
+            // Any other roster is its size then a line per ghost in order,
+            // each the toString representation followed by the ghost's type
+            writer.write("ghosts = " + ghostList.size());
+            writer.write(System.lineSeparator());
+            for (int i = 0; i < ghostList.size(); i++) {
+                writer.write("ghost = " + ghostList.get(i).toString() + ","
+                        + ghostList.get(i).getType());
+                writer.write(System.lineSeparator());
+            }
+        }
 
         //One blank line
-        builder.append(System.lineSeparator());
+        writer.write(System.lineSeparator());
 
         // The last block is the "[Scores]" block which should be output as
         // a multiline list of the scores
-        builder.append("[Scores]");
-        builder.append(System.lineSeparator());
+        writer.write("[Scores]");
+        writer.write(System.lineSeparator());
         // The scores should be output sorted by ScoreBoard.getEntriesByName().
         List<String> scoreList = game.getScores().getEntriesByName();
         for (int i = 0; i < scoreList.size(); i++) {
-            builder.append(scoreList.get(i));
+            writer.write(scoreList.get(i));
             // The last score should not have a newline.
             if (i < scoreList.size() - 1) {
-                builder.append(System.lineSeparator());
+                writer.write(System.lineSeparator());
             }
         }
+    }
 
-        // write to file
-        writer.write(builder.toString());
+    /**
+     * Checks if the roster is one of each ghost in the order blinky, inky,
+     * pinky, clyde, which is written with the four classic assignments.
+     * @param ghostList the ghosts of the game
+     * @return true if the roster is the classic one
+     */
+    private static boolean isClassic(List<Ghost> ghostList) {
+        return ghostList.size() == 4
+                && ghostList.get(0).getType() == GhostType.BLINKY
+                && ghostList.get(1).getType() == GhostType.INKY
+                && ghostList.get(2).getType() == GhostType.PINKY
+                && ghostList.get(3).getType() == GhostType.CLYDE;
     }
 }
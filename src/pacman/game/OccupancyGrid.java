@@ -0,0 +1,113 @@
+package pacman.game;
+
+import pacman.ghost.Ghost;
+import pacman.util.PositionMap;
+
+import java.util.List;
+
+/**
+ * Keeps track of which ghosts are on which tile, so the ghosts sharing a tile
+ * with the hunter can be found without checking every ghost. Each occupied
+ * tile has a linked list of the indexes (in PacmanGame.getGhosts()) of the
+ * ghosts on it, and a PositionMap from the packed tile to the first of them,
+ * so only occupied tiles take memory however large the board is.
+ */
+class OccupancyGrid {
+    // end of a list of occupants
+    static final int NONE = -1;
+
+    private final PositionMap heads = new PositionMap();
+    private Ghost[] ghosts = new Ghost[0];
+    // for each ghost, the packed tile it is listed under
+    private long[] tiles = new long[0];
+    private int[] next = new int[0];
+    private int[] previous = new int[0];
+
+    /**
+     * Brings the grid up to date with the roster of ghosts, which may have
+     * been replaced or moved outside of the game since the last update. Only
+     * ghosts that are no longer on the tile they are listed under are moved.
+     * @param roster ghosts of the game, in order
+     */
+    void update(List<Ghost> roster) {
+        if (roster.size() != ghosts.length) {
+            ghosts = new Ghost[roster.size()];
+            tiles = new long[roster.size()];
+            next = new int[roster.size()];
+            previous = new int[roster.size()];
+            heads.clear();
+            for (int i = 0; i < ghosts.length; i++) {
+                ghosts[i] = roster.get(i);
+                link(i, ghosts[i].getPackedPosition());
+            }
+            return;
+        }
+        for (int i = 0; i < ghosts.length; i++) {
+            ghosts[i] = roster.get(i);
+            update(i);
+        }
+    }
+
+    /**
+     * Moves one ghost to the tile it is now on, if it has changed.
+     * @param index of the ghost in the roster
+     */
+    void update(int index) {
+        long tile = ghosts[index].getPackedPosition();
+        if (tile != tiles[index]) {
+            unlink(index);
+            link(index, tile);
+        }
+    }
+
+    /*
+     * Adds a ghost to the front of the list for a tile.
+     */
+    private void link(int index, long tile) {
+        int head = heads.get(tile, NONE);
+        tiles[index] = tile;
+        previous[index] = NONE;
+        next[index] = head;
+        if (head != NONE) {
+            previous[head] = index;
+        }
+        heads.put(tile, index);
+    }
+
+    /*
+     * Takes a ghost out of the list for the tile it is listed under.
+     */
+    private void unlink(int index) {
+        int before = previous[index];
+        int after = next[index];
+        if (after != NONE) {
+            previous[after] = before;
+        }
+        if (before != NONE) {
+            next[before] = after;
+        } else if (after != NONE) {
+            heads.put(tiles[index], after);
+        } else {
+            heads.remove(tiles[index]);
+        }
+    }
+
+    /**
+     * Gets the first ghost on a tile.
+     * @param tile packed by Position.pack(int, int)
+     * @return the index of a ghost on the tile, or NONE if it is empty
+     */
+    int first(long tile) {
+        return heads.get(tile, NONE);
+    }
+
+    /**
+     * Gets the next ghost on the same tile as another.
+     * @param index of a ghost in the roster
+     * @return the index of the next ghost on its tile, or NONE if there are
+     * no more
+     */
+    int next(int index) {
+        return next[index];
+    }
+}
@@ -4,10 +4,12 @@ import pacman.board.PacmanBoard;
 import pacman.ghost.*;
 import pacman.hunter.Hunter;
 import pacman.score.ScoreBoard;
+import pacman.util.Position;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * PacmanGame stores the game's state and acts as the model for the entire game.
@@ -19,16 +21,24 @@ public class PacmanGame {
     private Hunter hunter;
     private PacmanBoard board;
     private ScoreBoard scores;
-    private Integer tick;
-    private Integer lives;
-    private Integer level;
-
-    // one of each ghost instance
-    private Blinky blinky;
-    private Inky inky;
-    private Pinky pinky;
-    private Clyde clyde;
+    private int tick;
+    private int lives;
+    private int level;
+
+    // the roster of ghosts, one of each for a classic game
     private List<Ghost> ghostList;
+    // the state of the ghosts, moved all together each even tick
+    private final GhostEngine engine = new GhostEngine();
+    // which ghosts are on which tile, for finding the ones the hunter hits
+    private final OccupancyGrid occupants = new OccupancyGrid();
+    // pool the ghosts move on, or null to move them on the game's thread
+    private ForkJoinPool ghostPool;
+    // indexes of ghosts that may have died this tick
+    private int[] deadGhosts = new int[0];
+    private int deadCount;
+
+    // ghosts chasing the hunter follow walking distance instead of a straight line
+    private boolean mazeChase;
 
     /**
      * Creates a new game with the given parameters and spawns one of each type
@@ -45,6 +55,25 @@ public class PacmanGame {
      * @param board  to be copied for this game
      */
     public PacmanGame(String title, String author, Hunter hunter, PacmanBoard board) {
+        this(title, author, hunter, board,
+                Arrays.asList(new Blinky(), new Inky(), new Pinky(), new Clyde()));
+    }
+
+    /**
+     * Creates a new game the same as PacmanGame(String, String, Hunter,
+     * PacmanBoard) but with the given roster of ghosts instead of one of
+     * each type. There may be any number of ghosts, of any types and in any
+     * order, and they are all spawned at the ghost spawn point. getGhosts()
+     * returns the ghosts in the order given.
+     * @param title  of the game board
+     * @param author of the game board.
+     * @param hunter for the current game
+     * @param board  to be copied for this game
+     * @param ghosts the roster of ghosts for the game
+     * @throws NullPointerException if ghosts is null or holds a null ghost
+     */
+    public PacmanGame(String title, String author, Hunter hunter,
+            PacmanBoard board, List<Ghost> ghosts) throws NullPointerException {
         this.title = title;
         this.author = author;
         this.hunter = hunter;
@@ -54,15 +83,15 @@ public class PacmanGame {
         this.level = 0;
         this.lives = 4;
 
-        // one of each ghost spawned at GHOST_SPAWN
-        this.blinky = new Blinky();
-        this.inky = new Inky();
-        this.pinky = new Pinky();
-        this.clyde = new Clyde();
-        this.ghostList = Arrays.asList(blinky, inky, pinky, clyde);
+        // the roster spawned at GHOST_SPAWN
+        this.ghostList = Arrays.asList(ghosts.toArray(new Ghost[0]));
         for (Ghost g : ghostList) {
+            if (g == null) {
+                throw new NullPointerException();
+            }
             g.setPosition(board.getGhostSpawn());
         }
+        engine.update(ghostList);
     }
 
     /**
@@ -156,9 +185,63 @@ public class PacmanGame {
         return ghostList;
     }
 
+    /**
+     * Checks if maze-aware chasing is turned on. See setMazeChase(boolean)
+     * @return true if chasing ghosts follow walking distance to the hunter.
+     */
+    public boolean isMazeChase() {
+        return mazeChase;
+    }
+
+    /**
+     * Turns maze-aware chasing on or off, it is off for a new game.
+     * When on, the board works out the walking distance from the hunter to
+     * every tile once on each tick that the ghosts move, see
+     * PacmanBoard.updateDistances(int, int). A ghost in Phase.CHASE whose
+     * chase target is the hunter's position ( Blinky, or Clyde when far away )
+     * then steps to the neighbouring tile closest to the hunter by walking
+     * distance rather than by straight-line distance.
+     * Turning it on builds the board's junction table, see
+     * PacmanBoard.prepareMazeDistances(), unless the board already has one,
+     * so games that never chase by walking distance do not pay for it. The
+     * table is held for the map's layout of walls, so games on copies or
+     * snapshots of one board, or on boards from one MapTemplate, build it at
+     * most once between them.
+     * @param mazeChase true to turn maze-aware chasing on.
+     */
+    public void setMazeChase(boolean mazeChase) {
+        this.mazeChase = mazeChase;
+        if (mazeChase && board.getMazeDistanceFootprint() == 0) {
+            board.prepareMazeDistances();
+        }
+    }
+
+    /**
+     * Gets the pool the ghosts move on. See setGhostPool(ForkJoinPool)
+     * @return the pool, or null if the ghosts move on the thread calling
+     * tick().
+     */
+    public ForkJoinPool getGhostPool() {
+        return ghostPool;
+    }
+
+    /**
+     * Sets a pool for the ghosts to work out their moves on, null (the
+     * default for a new game) to move them on the thread calling tick().
+     * With a pool each tick is in two phases: every ghost moves in parallel,
+     * then the hits and dead ghosts are dealt with in order on the thread
+     * calling tick(). The game plays exactly the same either way, see
+     * GhostEngine.moveAll(PacmanGame, ForkJoinPool) for when the pool is not
+     * used.
+     * @param ghostPool to move the ghosts on, or null.
+     */
+    public void setGhostPool(ForkJoinPool ghostPool) {
+        this.ghostPool = ghostPool;
+    }
+
     /**
      * Tick If we do not have any lives (getLives() == 0) then do nothing.
-     * Otherwise we do the following in this order:
+     * Otherwise we do the following, in this order for each ghost in turn:
      * 1. The Hunter moves Hunter.move(PacmanGame).
      * 2. For each ghost in the game, call Hunter.hit(Ghost)
      * 3. The Ghosts that are alive move on even ticks Ghost.move(PacmanGame) .
@@ -173,6 +256,11 @@ public class PacmanGame {
      * and reset the board and entities placing them at their spawn points.
      * 8. Increase the tick value. See getTick()
      * Note: game should start at a tick count of zero.
+     * The hunter does not move while the ghosts do, and what happens when it
+     * hits one ghost never depends on another. So only the ghosts on the
+     * hunter's tile are hit, found through an occupancy grid, before and
+     * after all the ghosts move, which works out the same as hitting every
+     * ghost before and after it moves.
      */
     public void tick() {
         if (getLives() == 0) {
@@ -182,20 +270,43 @@ public class PacmanGame {
         // 1 move Hunter
         hunter.move(this);
 
-        // 2 - Hit ghosts
-        for (Ghost g : ghostList) {
-            hunter.hit(g);
-            // 3 - Ghost alive & tick even
-            if (!(g.isDead()) && tick % 2 == 0) {
-                g.move(this);
+        // One walking distance pass shared by every ghost that moves this tick
+        if (mazeChase && tick % 2 == 0) {
+            board.updateDistances(Position.unpackX(hunter.getPackedPosition()),
+                    Position.unpackY(hunter.getPackedPosition()));
+        }
+
+        // ghosts may have been replaced or moved since the last tick
+        engine.update(ghostList);
+        occupants.update(ghostList);
+        if (deadGhosts.length < ghostList.size()) {
+            deadGhosts = new int[ghostList.size()];
+        }
+        deadCount = 0;
+
+        // 2 - Hit ghosts, those killed are found dead in the loop below
+        hitOccupants(false);
+        // by index so no iterator is created each tick
+        for (int i = 0; i < ghostList.size(); i++) {
+            if (ghostList.get(i).isDead()) {
+                deadGhosts[deadCount++] = i;
             }
-            // 4 - Hit hunter
-            hunter.hit(g);
-            // 5 - Ghost is Dead
+        }
+        // 3 - Ghost alive & tick even, all in one pass over the engine
+        if (tick % 2 == 0) {
+            engine.moveAll(this, ghostPool);
+            occupants.update(ghostList);
+        }
+        // 4 - Hit hunter
+        hitOccupants(true);
+        // 5 - Ghost is Dead, each listed at most once
+        for (int i = 0; i < deadCount; i++) {
+            Ghost g = ghostList.get(deadGhosts[i]);
             if (g.isDead()) {
                 g.reset();
                 g.setPosition(board.getGhostSpawn());
                 scores.increaseScore(200);
+                occupants.update(deadGhosts[i]);
             }
         }
 
@@ -219,6 +330,23 @@ public class PacmanGame {
         }
     }
 
+    /*
+     * Calls Hunter.hit(Ghost) for each ghost on the hunter's tile, noting the
+     * ones that die if record is true.
+     */
+    private void hitOccupants(boolean record) {
+        long tile = hunter.getPackedPosition();
+        for (int i = occupants.first(tile); i != OccupancyGrid.NONE;
+                i = occupants.next(i)) {
+            Ghost g = ghostList.get(i);
+            boolean wasDead = g.isDead();
+            hunter.hit(g);
+            if (record && !wasDead && g.isDead()) {
+                deadGhosts[deadCount++] = i;
+            }
+        }
+    }
+
     /**
      * Resets the Game in the following way:
      *      Lives is set to the default of 4.
@@ -242,12 +370,11 @@ public class PacmanGame {
     /**
      * For each ghost in the game,
      * set its phase to be Phase.FRIGHTENED with a duration of
-     * Phase.FRIGHTENED.getDuration();
+     * Phase.FRIGHTENED.getDuration(). The ghosts then share one phase timer.
      */
     public void setGhostsFrightened() {
-        for (Ghost g : ghostList) {
-            g.setPhase(Phase.FRIGHTENED, Phase.FRIGHTENED.getDuration());
-        }
+        engine.update(ghostList);
+        engine.setAllPhases(Phase.FRIGHTENED, Phase.FRIGHTENED.getDuration());
     }
 
     /**
@@ -255,7 +382,8 @@ public class PacmanGame {
      * the ghost's positions at the GHOSTSPAWN location on the board.
      */
     private void resetAllGhosts() {
-        for (Ghost g : ghostList) {
+        for (int i = 0; i < ghostList.size(); i++) {
+            Ghost g = ghostList.get(i);
             g.reset();
             g.setPosition(board.getGhostSpawn());
         }
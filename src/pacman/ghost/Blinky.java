@@ -51,6 +51,19 @@ public class Blinky extends Ghost {
         return game.getHunter().getPosition();
     }
 
+    @Override
+    long packedChaseTarget(PacmanGame game) {
+        return chaseTile(getPackedPosition(), game);
+    }
+
+    /*
+     * Works out chaseTarget(PacmanGame) for a Blinky on the given packed
+     * tile, so GhostEngine can call it without going through the ghost.
+     */
+    static long chaseTile(long ghost, PacmanGame game) {
+        return game.getHunter().getPackedPosition();
+    }
+
     /**
      * Blinky's home position is one block outside of the top right of the board.
      * The top left position of the board is (0, 0).
@@ -69,6 +82,19 @@ public class Blinky extends Ghost {
 //        return homePosition;
 
         // NEW
-        return new Position(game.getBoard().getWidth(), -1);
+        return Position.unpack(packedHome(game));
+    }
+
+    @Override
+    long packedHome(PacmanGame game) {
+        return homeTile(game);
+    }
+
+    /*
+     * Works out home(PacmanGame) for any Blinky, so GhostEngine can call it
+     * without going through the ghost.
+     */
+    static long homeTile(PacmanGame game) {
+        return Position.pack(game.getBoard().getWidth(), -1);
     }
 }
\ No newline at end of file
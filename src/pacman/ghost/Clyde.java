@@ -55,11 +55,26 @@ public class Clyde extends Ghost {
 //        return targetPosition;
 
         // NEW
-        Position hunterPosition = game.getHunter().getPosition();
-        if (getPosition().distance(hunterPosition) >= 8) {
+        return Position.unpack(packedChaseTarget(game));
+    }
+
+    @Override
+    long packedChaseTarget(PacmanGame game) {
+        return chaseTile(getPackedPosition(), game);
+    }
+
+    /*
+     * Works out chaseTarget(PacmanGame) for a Clyde on the given packed
+     * tile, so GhostEngine can call it without going through the ghost.
+     */
+    static long chaseTile(long ghost, PacmanGame game) {
+        long hunterPosition = game.getHunter().getPackedPosition();
+        // 8 away, compared squared
+        if (Position.distanceSquared(ghost, hunterPosition)
+                >= 8 * 8) {
             return hunterPosition;
         } else {
-            return home(game);
+            return homeTile(game);
         }
     }
 
@@ -82,6 +97,19 @@ public class Clyde extends Ghost {
 //        return homePosition;
 
         // NEW
-        return new Position(-1, game.getBoard().getHeight());
+        return Position.unpack(packedHome(game));
+    }
+
+    @Override
+    long packedHome(PacmanGame game) {
+        return homeTile(game);
+    }
+
+    /*
+     * Works out home(PacmanGame) for any Clyde, so GhostEngine can call it
+     * without going through the ghost.
+     */
+    static long homeTile(PacmanGame game) {
+        return Position.pack(-1, game.getBoard().getHeight());
     }
 }
\ No newline at end of file
@@ -5,13 +5,25 @@ import pacman.game.PacmanGame;
 import pacman.util.Direction;
 import pacman.util.Position;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.Collections;
 
 /**
  * An Abstract Ghost which is a game entity.
+ * A new ghost holds its own state until a GhostEngine takes it on, normally
+ * that of the game it is a part of, after which the state is held in a slot
+ * of the engine and the ghost reads and writes it there.
  */
 public abstract class Ghost extends Entity {
+    // the engine holding this ghost's state and its slot there, or null
+    // while the ghost holds its own state in the fields below
+    GhostEngine engine;
+    int slot;
+    // created from the packed position when first asked for
+    private Position position;
+
+    // the state of a ghost no engine holds
+    private long packed;
+    private Direction direction;
     private Phase phase;
     private int phaseDuration;
     private boolean dead;
@@ -23,9 +35,82 @@ public abstract class Ghost extends Entity {
      * position of (0, 0) and a default direction of facing up.
      */
     public Ghost() {
-        this.phaseDuration = Phase.SCATTER.getDuration();
-        this.phase = Phase.SCATTER;
-        this.dead = false;
+        resetFields();
+    }
+
+    /**
+     * Gets the current position of the ghost.
+     * @return current position.
+     */
+    @Override
+    public Position getPosition() {
+        long packed = getPackedPosition();
+        if (position == null || position.pack() != packed) {
+            position = Position.unpack(packed);
+        }
+        return position;
+    }
+
+    /**
+     * Sets the position of the ghost, if position is null the position not set.
+     * @param position to set to the ghost
+     */
+    @Override
+    public void setPosition(Position position) {
+        if (position != null) {
+            setPackedPosition(position.pack());
+            this.position = position;
+        }
+    }
+
+    /**
+     * Gets the current position packed by Position.pack(int, int), without
+     * creating a Position.
+     * @return the packed coordinates of the ghost.
+     */
+    @Override
+    public long getPackedPosition() {
+        return engine == null ? packed : engine.positions[slot];
+    }
+
+    /**
+     * Sets the position of the ghost from coordinates packed by
+     * Position.pack(int, int).
+     * @param packed coordinates to move the ghost to.
+     */
+    @Override
+    public void setPackedPosition(long packed) {
+        if (engine == null) {
+            this.packed = packed;
+        } else {
+            engine.positions[slot] = packed;
+        }
+    }
+
+    /**
+     * Gets the direction that this ghost is facing.
+     * @return the current direction of the ghost.
+     */
+    @Override
+    public Direction getDirection() {
+        if (engine == null) {
+            return direction;
+        }
+        return GhostEngine.BY_ORDINAL[engine.directions[slot]];
+    }
+
+    /**
+     * Sets the direction of the ghost, if the direction is null the direction
+     * is not set and remains the same.
+     * @param direction to be set.
+     */
+    @Override
+    public void setDirection(Direction direction) {
+        if (direction != null && engine == null) {
+            this.direction = direction;
+        } else if (direction != null) {
+            engine.directions[slot] = (byte) direction.ordinal();
+        }
     }
 
     /**
@@ -36,14 +121,14 @@ public abstract class Ghost extends Entity {
      * @param duration - of ticks for the phase to lat for
      */
      public void setPhase(Phase newPhase, int duration) {
-         if (newPhase != null) {
-             this.phase = newPhase;
+         if (newPhase == null) {
+             newPhase = getPhase();
          }
-
-         if (duration >= 0) {
-             this.phaseDuration = duration;
+         if (engine == null) {
+             phase = newPhase;
+             phaseDuration = Math.max(0, duration);
          } else {
-             this.phaseDuration = 0;
+             engine.setPhase(slot, newPhase, duration);
          }
      }
 
@@ -52,29 +137,14 @@ public abstract class Ghost extends Entity {
      * @return the set phase.
      */
     public Phase getPhase() {
-        return phase;
+        return engine == null ? phase : engine.phase(slot);
          }
 
     /*
-     * NextPhase decreases our phase duration and moves us to the
-     * next phase if it is 0.
-     *
-     * - CHASE goes to SCATTER.
-     * - FRIGHTENED && SCATTER go to CHASE.
+     * Gets the number of moves left in the current phase.
      */
-    private void nextPhase() {
-        phaseDuration = Integer.max(0, phaseDuration - 1);
-        if (phaseDuration == 0) {
-            switch (getPhase()) {
-                case CHASE:
-                    setPhase(Phase.SCATTER, Phase.SCATTER.getDuration());
-                    break;
-                case FRIGHTENED:
-                case SCATTER:
-                    setPhase(Phase.CHASE, Phase.CHASE.getDuration());
-                    break;
-            }
-        }
+    int getPhaseDuration() {
+        return engine == null ? phaseDuration : engine.duration(slot);
     }
 
     /**
@@ -82,7 +152,7 @@ public abstract class Ghost extends Entity {
      * @return the phase and duration formatted as such: "PHASE:DURATION".
      */
     public String phaseInfo() {
-        return "" + phase + ":" + phaseDuration + "";
+        return "" + getPhase() + ":" + getPhaseDuration() + "";
     }
 
     /**
@@ -101,14 +171,18 @@ public abstract class Ghost extends Entity {
      * Kills this ghost by setting its status to isDead.
      */
     public void kill() {
-        dead = true;
+        if (engine == null) {
+            dead = true;
+        } else {
+            engine.kill(slot);
+        }
     }
 
     /**
      * Checks if this ghost is dead.
      */
     public boolean isDead() {
-        return dead;
+        return engine == null ? dead : engine.dead[slot];
     }
 
     /**
@@ -116,11 +190,23 @@ public abstract class Ghost extends Entity {
      * Phase of SCATTER with the SCATTER.getDuration() and facing UP.
      */
     public void reset() {
+        if (engine == null) {
+            resetFields();
+        } else {
+            engine.resetSlot(slot);
+        }
+    }
+
+    /*
+     * Resets the state held by the ghost itself, the same as
+     * GhostEngine.resetSlot(int).
+     */
+    private void resetFields() {
         dead = false;
-        phaseDuration = Phase.SCATTER.getDuration();
         phase = Phase.SCATTER;
-        setPosition(new Position(0, 0));
-        setDirection(Direction.UP);
+        phaseDuration = Phase.SCATTER.getDuration();
+        packed = Position.pack(0, 0);
+        direction = Direction.UP;
     }
 
     /**
@@ -136,9 +222,9 @@ public abstract class Ghost extends Entity {
 
         Ghost other = (Ghost) o;
         return super.equals(other)
-                && this.dead == other.dead
-                && this.phaseDuration == other.phaseDuration
-                && this.phase == other.phase;
+                && isDead() == other.isDead()
+                && getPhaseDuration() == other.getPhaseDuration()
+                && getPhase() == other.getPhase();
     }
 
     /**
@@ -149,13 +235,13 @@ public abstract class Ghost extends Entity {
     @Override
     public int hashCode() {
         int hash = super.hashCode();
-        if (this.dead) {
+        if (isDead()) {
             hash *= 5;
         } else {
             hash *= 3;
         }
 
-        return hash + this.phaseDuration;
+        return hash + getPhaseDuration();
     }
 
     /**
@@ -167,98 +253,7 @@ public abstract class Ghost extends Entity {
      */
     @Override
     public String toString() {
-        return super.toString()
-                + "," + this.phase
-                + ":" + this.phaseDuration;
-    }
-
-    /**
-     * If Ghost is FRIGHTENED, then choose a target position with coordinates:
-     *      targetPositionX = (x*24 mod (2 * board width )) - board width,
-     *      targetPositionY = (y*36 mod (2 * board height)) - board height
-     * where x and y are the current coordinates of the ghost.
-     * @param game that the ghost is a part of
-     * @return the position of the ghost when frightened
-     */
-    private Position frightenedPosition(PacmanGame game) {
-        int boardWidth = game.getBoard().getWidth();
-        int boardHeight = game.getBoard().getHeight();
-        Position current = getPosition();
-
-        int targetX = ((current.getX() * 24) % (2 * boardWidth)) - boardWidth;
-        int targetY = ((current.getY() * 36) % (2 * boardHeight)) - boardHeight;
-        return new Position(targetX, targetY);
-    }
-
-    /**
-     * Get the target position.
-     * If the phase is CHASE, then get the chaseTarget.
-     * If the phase is SCATTER, then the position is the ghost's home position.
-     * If the phase is FRIGHTENED, then choose according to frightenedPosition.
-     * @param game that ghost is currently a part of
-     * @return the target position according to the Ghost Phase conditions.
-     */
-    private Position getTarget(PacmanGame game) {
-        switch (getPhase()) {
-            case CHASE:
-                return chaseTarget(game);
-            case SCATTER:
-                return home(game);
-            case FRIGHTENED:
-                return frightenedPosition(game);
-            default:
-                return getPosition();
-        }
-    }
-
-    /**
-     * Set the new direction and position of the ghost per step 3-5 of move().
-     * 3 - Choose direction that the current Ghost position when moved 1 step
-     * has the smallest euclidean distance to the target position.
-     * The board item in the move position must be pathable for it to be chosen.
-     * The chosen direction cannot be opposite to the current direction.
-     * If multiple directions have the same shortest distance,
-     * then choose the direction in the order UP, LEFT, DOWN, RIGHT
-     * 4 - Set direction of the Ghost to the chosen direction.
-     * 5 - Set position of this Ghost to be one forward step in chosen direction.
-     * @param game that the ghost is currently a part of
-     */
-    private void setMovePosition(PacmanGame game) {
-        // 3- chose direction  and corresponding position
-        Direction chosenDirection = getDirection();
-        Position chosenPosition = getPosition();
-        // Directions put in list in opposite order, go through each
-        List<Direction> directionList = Arrays.asList(
-                Direction.RIGHT, Direction.DOWN, Direction.LEFT, Direction.UP);
-        // initialise smallest distance as the largest possible double value
-        double smallestDistance = Double.MAX_VALUE;
-        Position targetPosition = getTarget(game);
-
-        for (Direction d : directionList) {
-            // Find Ghost's new position based on one step in this direction
-            int newX = getPosition().getX() + d.offset().getX();
-            int newY = getPosition().getY() + d.offset().getY();
-            Position newPosition = new Position(newX, newY);
-            // Check if this new position has smallest distance,
-            // is pathable and not opposite to current
-            try {
-                if (newPosition.distance(targetPosition) <= smallestDistance
-                        && game.getBoard().getEntry(newPosition).getPathable()
-                        && !(d == getDirection().opposite())) {
-                    // Passed check, new chosen direction and position
-                    smallestDistance = newPosition.distance(getTarget(game));
-                    chosenDirection = d;
-                    chosenPosition = newPosition;
-                }
-            } catch(IndexOutOfBoundsException e) {
-                // position is out of bounds, continue to next direction
-                continue;
-            }
-
-        }
-        // 4 - set direction & position
-        setDirection(chosenDirection);
-        setPosition(chosenPosition);
+        return super.toString() + "," + phaseInfo();
     }
 
     /**
@@ -267,14 +262,16 @@ public abstract class Ghost extends Entity {
      * 1 - nextPhase()
      * 2 - getTargetPosition()
      * 3 -5 - setMovePosition()
+     * These steps are carried out by the GhostEngine holding the ghost, a
+     * ghost moved before any engine holds it is given one of its own.
      * @param game information needed to decide movement.
      */
     @Override
     public void move(PacmanGame game) {
-        //decrease phase duration by 1 and if duration 0, move to next phase
-        nextPhase();
-        // set position and direction based on target position.
-        setMovePosition(game);
+        if (engine == null) {
+            new GhostEngine().update(Collections.singletonList(this));
+        }
+        engine.move(slot, game);
     }
 
     /**
@@ -289,4 +286,20 @@ public abstract class Ghost extends Entity {
      * @param game to read the board from.
      */
     public abstract Position chaseTarget(PacmanGame game);
+
+    /*
+     * Gets home(PacmanGame) packed by Position.pack(int, int). The ghosts of
+     * this package work it out without creating a Position.
+     */
+    long packedHome(PacmanGame game) {
+        return home(game).pack();
+    }
+
+    /*
+     * Gets chaseTarget(PacmanGame) packed by Position.pack(int, int). The
+     * ghosts of this package work it out without creating a Position.
+     */
+    long packedChaseTarget(PacmanGame game) {
+        return chaseTarget(game).pack();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,519 @@
+package pacman.ghost;
+
+import pacman.board.PacmanBoard;
+import pacman.game.PacmanGame;
+import pacman.util.Direction;
+import pacman.util.Position;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Holds the state of a roster of ghosts in parallel arrays, one slot per
+ * ghost, and moves them all in one loop. Once added to an engine a Ghost
+ * keeps no state of its own, it is a view of its slot in whichever engine it
+ * was last added to, so the ghost API and the display read and write the
+ * arrays directly. Until then a ghost holds its own state.
+ * The chase and home targets of Blinky, Inky, Pinky and Clyde are picked by
+ * the GhostType ordinal of each slot and worked out by static methods, so the
+ * loop makes no calls through the ghosts. Any other kind of ghost is asked
+ * for its targets as usual.
+ * Phase timers are kept by a PhaseScheduler, ghosts with the same phase and
+ * time left share one timer, so moving the ghosts changes the phases of
+ * whole groups at once rather than counting down the time of each ghost.
+ */
+public class GhostEngine {
+    // Directions in opposite order of preference, go through each
+    private static final Direction[] DIRECTIONS = {
+            Direction.RIGHT, Direction.DOWN, Direction.LEFT, Direction.UP};
+    // values() copies the array on every call, so keep one of each
+    static final Direction[] BY_ORDINAL = Direction.values();
+    static final Phase[] PHASES = Phase.values();
+    private static final GhostType[] TYPES = GhostType.values();
+    // kind of a ghost that is not one of the four built in types
+    private static final byte CUSTOM = -1;
+
+    /**
+     * The fewest ghosts moved by one task when moving in parallel, see
+     * moveAll(PacmanGame, ForkJoinPool).
+     */
+    public static final int GRAIN = 256;
+
+    // the ghost viewing each slot
+    private Ghost[] ghosts;
+    // per slot state, positions packed by Position.pack(int, int)
+    long[] positions;
+    byte[] directions;
+    // PhaseScheduler group of each slot
+    private int[] groups;
+    private PhaseScheduler scheduler;
+    boolean[] dead;
+    // number of slots that are dead
+    private int deadCount;
+    // GhostType ordinal of each slot, or CUSTOM
+    private byte[] kinds;
+    // number of slots that are CUSTOM
+    private int customCount;
+    // frightened targets and homes for the board last moved on
+    private TargetTable targets;
+
+    /**
+     * Creates an engine with no ghosts. See update(List).
+     */
+    public GhostEngine() {
+        allocate(0);
+    }
+
+    /*
+     * Replaces the arrays with new ones for the given number of slots.
+     */
+    private void allocate(int size) {
+        ghosts = new Ghost[size];
+        positions = new long[size];
+        directions = new byte[size];
+        groups = new int[size];
+        Arrays.fill(groups, PhaseScheduler.NONE);
+        scheduler = new PhaseScheduler();
+        dead = new boolean[size];
+        deadCount = 0;
+        kinds = new byte[size];
+    }
+
+    /*
+     * Gets the GhostType ordinal that picks the targeting for a ghost, only
+     * the four built in classes are trusted to target as their type does.
+     */
+    private static byte kindOf(Ghost ghost) {
+        Class<?> type = ghost.getClass();
+        if (type == Blinky.class || type == Inky.class
+                || type == Pinky.class || type == Clyde.class) {
+            return (byte) ghost.getType().ordinal();
+        }
+        return CUSTOM;
+    }
+
+    /*
+     * Sets a slot to alive, SCATTER for its full duration, at (0, 0) and
+     * facing UP.
+     */
+    void resetSlot(int slot) {
+        if (dead[slot]) {
+            dead[slot] = false;
+            deadCount--;
+        }
+        groups[slot] = scheduler.join(groups[slot],
+                (byte) Phase.SCATTER.ordinal(), Phase.SCATTER.getDuration());
+        positions[slot] = Position.pack(0, 0);
+        directions[slot] = (byte) Direction.UP.ordinal();
+    }
+
+    /*
+     * Marks the ghost in a slot as dead.
+     */
+    void kill(int slot) {
+        if (!dead[slot]) {
+            dead[slot] = true;
+            deadCount++;
+        }
+    }
+
+    /*
+     * Gets the phase of a slot.
+     */
+    Phase phase(int slot) {
+        return PHASES[scheduler.phase(groups[slot])];
+    }
+
+    /*
+     * Gets the time a slot has left in its phase.
+     */
+    int duration(int slot) {
+        return scheduler.duration(groups[slot]);
+    }
+
+    /*
+     * Sets the phase of a slot and the time it has left, at least 0.
+     */
+    void setPhase(int slot, Phase phase, int duration) {
+        groups[slot] = scheduler.join(groups[slot], (byte) phase.ordinal(),
+                Math.max(0, duration));
+    }
+
+    /*
+     * Gets the number of phase timers in use.
+     */
+    int timerCount() {
+        return scheduler.groupCount();
+    }
+
+    /**
+     * Sets every ghost held to the same phase for the same time, see
+     * Ghost.setPhase(Phase, int). The ghosts then share a single timer.
+     * @param phase to set the ghosts to
+     * @param duration number of moves for the phase to last, 0 if less
+     */
+    public void setAllPhases(Phase phase, int duration) {
+        int group = scheduler.joinAll((byte) phase.ordinal(),
+                Math.max(0, duration), groups.length);
+        Arrays.fill(groups, group);
+    }
+
+    /**
+     * Makes the engine hold the given roster, ghost i in slot i. Ghosts that
+     * are new to the roster, or have been moved within it or added to another
+     * engine since, bring their state with them. Nothing changes if the
+     * roster is already held.
+     * @param roster ghosts to hold, in order
+     */
+    public void update(List<Ghost> roster) {
+        if (roster.size() == ghosts.length) {
+            boolean held = true;
+            for (int i = 0; i < ghosts.length && held; i++) {
+                Ghost ghost = roster.get(i);
+                held = ghosts[i] == ghost && ghost.engine == this
+                        && ghost.slot == i;
+            }
+            if (held) {
+                return;
+            }
+        }
+
+        // copy every ghost's state out of wherever it is now before any
+        // ghost is pointed at its new slot
+        long[] newPositions = new long[roster.size()];
+        byte[] newDirections = new byte[roster.size()];
+        Phase[] newPhases = new Phase[roster.size()];
+        int[] newDurations = new int[roster.size()];
+        boolean[] newDead = new boolean[roster.size()];
+        byte[] newKinds = new byte[roster.size()];
+        Ghost[] newGhosts = roster.toArray(new Ghost[0]);
+        for (int i = 0; i < newGhosts.length; i++) {
+            Ghost ghost = newGhosts[i];
+            newPositions[i] = ghost.getPackedPosition();
+            newDirections[i] = (byte) ghost.getDirection().ordinal();
+            newPhases[i] = ghost.getPhase();
+            newDurations[i] = ghost.getPhaseDuration();
+            newDead[i] = ghost.isDead();
+            newKinds[i] = kindOf(ghost);
+        }
+        ghosts = newGhosts;
+        positions = newPositions;
+        directions = newDirections;
+        groups = new int[newGhosts.length];
+        scheduler = new PhaseScheduler();
+        dead = newDead;
+        kinds = newKinds;
+        customCount = 0;
+        deadCount = 0;
+        for (int i = 0; i < ghosts.length; i++) {
+            ghosts[i].engine = this;
+            ghosts[i].slot = i;
+            groups[i] = scheduler.join(PhaseScheduler.NONE,
+                    (byte) newPhases[i].ordinal(), newDurations[i]);
+            if (kinds[i] == CUSTOM) {
+                customCount++;
+            }
+            if (dead[i]) {
+                deadCount++;
+            }
+        }
+    }
+
+    /**
+     * Moves every ghost that is not dead, in roster order, the same as
+     * calling Ghost.move(PacmanGame) on each of them.
+     * @param game the ghosts are a part of
+     */
+    public void moveAll(PacmanGame game) {
+        prepareTargets(game);
+        stepPhases();
+        for (int slot = 0; slot < dead.length; slot++) {
+            if (!dead[slot]) {
+                setMovePosition(slot, game);
+            }
+        }
+    }
+
+    /*
+     * Takes one step of the phase timers for every ghost that is not dead,
+     * the same as nextPhase did for each ghost as it moved. Dead ghosts keep
+     * the time they have left.
+     */
+    private void stepPhases() {
+        if (deadCount > 0) {
+            for (int slot = 0; slot < dead.length; slot++) {
+                if (dead[slot]) {
+                    groups[slot] = scheduler.hold(groups[slot]);
+                }
+            }
+        }
+        scheduler.step();
+    }
+
+    /**
+     * Moves every ghost that is not dead the same as moveAll(PacmanGame),
+     * with the ghosts shared between the threads of the pool.
+     * Where a ghost moves to depends only on its own slot, the board and the
+     * hunter, and each ghost only changes its own slot, so every ghost ends up
+     * exactly where it would moving one after the other. Nothing else may
+     * change the board, hunter or ghosts while this runs.
+     * The ghosts are moved one after the other on the calling thread instead
+     * if pool is null, there are no more than GRAIN ghosts, any ghost is not
+     * a Blinky, Inky, Pinky or Clyde (their targets may not be safe to work
+     * out from several threads), or maze chasing is on without a junction
+     * table (see PacmanBoard.prepareMazeDistances()) as the walking distance
+     * searches are then shared.
+     * @param game the ghosts are a part of
+     * @param pool to move the ghosts on, or null to move them on this thread
+     */
+    public void moveAll(PacmanGame game, ForkJoinPool pool) {
+        PacmanBoard board = game.getBoard();
+        if (pool == null || dead.length <= GRAIN || customCount > 0
+                || game.isMazeChase()
+                && board.getMazeDistanceFootprint() == 0) {
+            moveAll(game);
+            return;
+        }
+        // an ARRAY or PACKED board builds its neighbour table the first time
+        // it is read, build it now so the tasks only ever read the board
+        board.getNeighbours(0, 0);
+        prepareTargets(game);
+        stepPhases();
+        pool.invoke(new MoveTask(game, 0, dead.length));
+    }
+
+    /*
+     * Moves the ghosts in a range of slots, splitting it in half until it is
+     * no more than GRAIN slots.
+     */
+    private class MoveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final PacmanGame game;
+        private final int from;
+        private final int to;
+
+        MoveTask(PacmanGame game, int from, int to) {
+            this.game = game;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRAIN) {
+                for (int slot = from; slot < to; slot++) {
+                    if (!dead[slot]) {
+                        setMovePosition(slot, game);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MoveTask(game, from, middle),
+                    new MoveTask(game, middle, to));
+        }
+    }
+
+    /*
+     * Moves the ghost in a slot, see Ghost.move(PacmanGame).
+     */
+    void move(int slot, PacmanGame game) {
+        //decrease phase duration by 1 and if duration 0, move to next phase
+        groups[slot] = scheduler.advance(groups[slot]);
+        prepareTargets(game);
+        // set position and direction based on target position.
+        setMovePosition(slot, game);
+    }
+
+    /**
+     * Get the target position.
+     * If the phase is CHASE, then get the chaseTarget.
+     * If the phase is SCATTER, then the position is the ghost's home position.
+     * If the phase is FRIGHTENED, then choose according to frightenedPosition.
+     * @param slot of the ghost
+     * @param game that ghost is currently a part of
+     * @return the packed target position according to the Ghost Phase
+     * conditions.
+     */
+    private long getTarget(int slot, PacmanGame game) {
+        switch (phase(slot)) {
+            case CHASE:
+                return chaseTarget(slot, game);
+            case SCATTER:
+                return home(slot, game);
+            case FRIGHTENED:
+                return frightenedPosition(slot);
+            default:
+                return positions[slot];
+        }
+    }
+
+    /*
+     * Gets the chase target of a slot by its kind.
+     */
+    private long chaseTarget(int slot, PacmanGame game) {
+        if (kinds[slot] == CUSTOM) {
+            return ghosts[slot].packedChaseTarget(game);
+        }
+        long position = positions[slot];
+        switch (TYPES[kinds[slot]]) {
+            case BLINKY:
+                return Blinky.chaseTile(position, game);
+            case INKY:
+                return Inky.chaseTile(position, game);
+            case PINKY:
+                return Pinky.chaseTile(position, game);
+            default:
+                return Clyde.chaseTile(position, game);
+        }
+    }
+
+    /*
+     * Gets the home of a slot by its kind.
+     */
+    private long home(int slot, PacmanGame game) {
+        if (kinds[slot] == CUSTOM) {
+            return ghosts[slot].packedHome(game);
+        }
+        return targets.home(kinds[slot]);
+    }
+
+    /*
+     * Gets the frightened target of a slot, see TargetTable.
+     */
+    private long frightenedPosition(int slot) {
+        return targets.frightened(positions[slot]);
+    }
+
+    /*
+     * Works out the targets that only depend on the board, unless they have
+     * been for a board of the same size.
+     */
+    private void prepareTargets(PacmanGame game) {
+        if (targets == null || !targets.fits(game.getBoard())) {
+            targets = new TargetTable(game);
+        }
+    }
+
+    /**
+     * Set the new direction and position of the ghost per step 3-5 of
+     * Ghost.move(PacmanGame).
+     * 3 - Choose direction that the current Ghost position when moved 1 step
+     * has the smallest euclidean distance to the target position. Squared
+     * distances are compared, which picks the same direction.
+     * The board item in the move position must be pathable for it to be chosen.
+     * The chosen direction cannot be opposite to the current direction.
+     * If multiple directions have the same shortest distance,
+     * then choose the direction in the order UP, LEFT, DOWN, RIGHT
+     * 4 - Set direction of the Ghost to the chosen direction.
+     * 5 - Set position of this Ghost to be one forward step in chosen direction.
+     * Only junctions, tiles where more than one direction can be chosen, need
+     * the target. Elsewhere the only direction (if any) is taken straight away.
+     * @param slot of the ghost
+     * @param game that the ghost is currently a part of
+     */
+    private void setMovePosition(int slot, PacmanGame game) {
+        // Directions with a pathable tile (off the board is not) next to us,
+        // other than back the way we came
+        PacmanBoard board = game.getBoard();
+        long position = positions[slot];
+        int x = Position.unpackX(position);
+        int y = Position.unpackY(position);
+        Direction direction = BY_ORDINAL[directions[slot]];
+        int moves = board.getNeighbours(x, y) & ~direction.opposite().mask();
+        if (Integer.bitCount(moves) <= 1) {
+            // every rule below would choose this one direction or stay put
+            if (moves != 0) {
+                Direction forced =
+                        BY_ORDINAL[Integer.numberOfTrailingZeros(moves)];
+                directions[slot] = (byte) forced.ordinal();
+                positions[slot] = Position.pack(x + forced.getX(),
+                        y + forced.getY());
+            }
+            return;
+        }
+
+        // 3- chose direction  and corresponding position
+        Direction chosenDirection = direction;
+        long chosenPosition = position;
+        // initialise smallest distance as the largest possible value
+        long smallestDistance = Long.MAX_VALUE;
+        long targetPosition = getTarget(slot, game);
+
+        // Chasing and scattering can follow the board's walking distances
+        if (game.isMazeChase() && phase(slot) != Phase.FRIGHTENED
+                && followDistances(slot, game, targetPosition)) {
+            return;
+        }
+
+        for (Direction d : DIRECTIONS) {
+            // Find Ghost's new position based on one step in this direction
+            long newPosition = Position.pack(x + d.getX(), y + d.getY());
+            long distance = Position.distanceSquared(newPosition,
+                    targetPosition);
+            // Check if this new position has smallest distance,
+            // is pathable and not opposite to current
+            if (distance <= smallestDistance && (moves & d.mask()) != 0) {
+                // Passed check, new chosen direction and position
+                smallestDistance = distance;
+                chosenDirection = d;
+                chosenPosition = newPosition;
+            }
+        }
+        // 4 - set direction & position
+        directions[slot] = (byte) chosenDirection.ordinal();
+        positions[slot] = chosenPosition;
+    }
+
+    /**
+     * Steps towards the target by walking distance. Chooses the pathable
+     * direction, that is not opposite to the current direction, whose tile
+     * has the smallest walking distance to the target. Ties are broken the
+     * same as setMovePosition. When the target is the hunter the distances
+     * the game worked out this tick (see PacmanBoard.updateDistances) are
+     * used, otherwise PacmanBoard.getMazeDistance is.
+     * @param slot of the ghost
+     * @param game that the ghost is currently a part of
+     * @param target packed tile to head towards
+     * @return true if the ghost moved, false if no neighbouring tile can reach
+     * the target and the ghost did not move.
+     */
+    private boolean followDistances(int slot, PacmanGame game, long target) {
+        PacmanBoard board = game.getBoard();
+        boolean hunter = target == game.getHunter().getPackedPosition();
+        int targetX = Position.unpackX(target);
+        int targetY = Position.unpackY(target);
+        int x = Position.unpackX(positions[slot]);
+        int y = Position.unpackY(positions[slot]);
+        Direction back = BY_ORDINAL[directions[slot]].opposite();
+        int moves = board.getNeighbours(x, y);
+        Direction chosenDirection = null;
+        int smallestDistance = Integer.MAX_VALUE;
+
+        for (Direction d : DIRECTIONS) {
+            if ((moves & d.mask()) == 0 || d == back) {
+                continue;
+            }
+            int newX = x + d.getX();
+            int newY = y + d.getY();
+            // measured from the target so an on demand search is reused
+            int distance = hunter ? board.getDistance(newX, newY)
+                    : board.getMazeDistance(targetX, targetY, newX, newY);
+            if (distance >= 0 && distance <= smallestDistance) {
+                smallestDistance = distance;
+                chosenDirection = d;
+            }
+        }
+
+        if (chosenDirection == null) {
+            return false;
+        }
+        directions[slot] = (byte) chosenDirection.ordinal();
+        positions[slot] = Position.pack(x + chosenDirection.getX(),
+                y + chosenDirection.getY());
+        return true;
+    }
+}
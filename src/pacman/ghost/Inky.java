@@ -39,30 +39,44 @@ public class Inky extends Ghost {
      */
     @Override
     public Position chaseTarget(PacmanGame game) {
+        return Position.unpack(packedChaseTarget(game));
+    }
+
+    @Override
+    long packedChaseTarget(PacmanGame game) {
+        return chaseTile(getPackedPosition(), game);
+    }
+
+    /*
+     * Works out chaseTarget(PacmanGame) for an Inky on the given packed
+     * tile, so GhostEngine can call it without going through the ghost.
+     */
+    static long chaseTile(long ghost, PacmanGame game) {
         // TODO: 11/27/19 ORIGINAL (check Phase) or NEW (no check)?
         // default - no change to current position
-        Position targetPosition = getPosition();
+        long targetPosition = ghost;
         // CHASE - target hunter position
        // if (getPhase() == Phase.CHASE) { = ORIGINAL
-            int hunterX = game.getHunter().getPosition().getX();
-            int hunterY = game.getHunter().getPosition().getY();
+            long hunter = game.getHunter().getPackedPosition();
+            int hunterX = Position.unpackX(hunter);
+            int hunterY = Position.unpackY(hunter);
             Direction hunterDirection = game.getHunter().getDirection();
             switch (hunterDirection) {
                 case UP:
                     // same x, 2 down for y
-                    targetPosition = new Position(hunterX, hunterY + 2);
+                    targetPosition = Position.pack(hunterX, hunterY + 2);
                     break;
                 case DOWN:
                     // same x, 2 up for y
-                    targetPosition = new Position(hunterX, hunterY - 2);
+                    targetPosition = Position.pack(hunterX, hunterY - 2);
                     break;
                 case RIGHT:
                     // 2 left for x, same y
-                    targetPosition = new Position(hunterX - 2, hunterY);
+                    targetPosition = Position.pack(hunterX - 2, hunterY);
                     break;
                 case LEFT:
                     // 2 right for x, same y
-                    targetPosition = new Position(hunterX + 2, hunterY);
+                    targetPosition = Position.pack(hunterX + 2, hunterY);
                     break;
             }
         //}
@@ -89,7 +103,20 @@ public class Inky extends Ghost {
 //        return homePosition;
 
         // NEW
+        return Position.unpack(packedHome(game));
+    }
+
+    @Override
+    long packedHome(PacmanGame game) {
+        return homeTile(game);
+    }
+
+    /*
+     * Works out home(PacmanGame) for any Inky, so GhostEngine can call it
+     * without going through the ghost.
+     */
+    static long homeTile(PacmanGame game) {
         PacmanBoard board = game.getBoard();
-        return new Position(board.getWidth(), board.getHeight());
+        return Position.pack(board.getWidth(), board.getHeight());
     }
 }
\ No newline at end of file
@@ -0,0 +1,321 @@
+package pacman.ghost;
+
+import pacman.util.PositionMap;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the phase timers of the ghosts of one GhostEngine in a hashed timer
+ * wheel. Ghosts in the same phase with the same time left share a group, and
+ * only groups are scheduled, so a phase change is one event for every ghost
+ * in the group rather than a count down per ghost per tick.
+ * Time is counted in steps, one for each time the ghosts of the engine move
+ * together. A group changes phase on the step its time runs out, or on the
+ * next step its ghosts move if it has no time left, which is when nextPhase
+ * used to change the phase of each of its ghosts:
+ *
+ * - CHASE goes to SCATTER.
+ * - FRIGHTENED && SCATTER go to CHASE.
+ */
+class PhaseScheduler {
+    /**
+     * Group of a slot that is not in one.
+     */
+    static final int NONE = -1;
+
+    // buckets in the wheel, a power of two, groups ending further ahead
+    // share a bucket and are passed over until their step comes round
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private long clock;
+
+    // per group state, phase ordinal, step its time runs out, step it
+    // changes phase and number of slots in it
+    private byte[] phases;
+    private long[] ends;
+    private long[] changes;
+    private int[] members;
+    // links between the groups of a bucket, next also links free groups
+    private int[] next;
+    private int[] previous;
+    private int free;
+    private int used;
+    private final int[] buckets = new int[WHEEL_SIZE];
+
+    // group of each phase, end and change, keyed by key(phase, end, change)
+    // rather than a packed position
+    private final PositionMap byEnd = new PositionMap();
+
+    /**
+     * Creates a scheduler with no groups.
+     */
+    PhaseScheduler() {
+        phases = new byte[8];
+        ends = new long[8];
+        changes = new long[8];
+        members = new int[8];
+        next = new int[8];
+        previous = new int[8];
+        free = NONE;
+        Arrays.fill(buckets, NONE);
+    }
+
+    /*
+     * Forgets every group, keeping the arrays to be used again.
+     */
+    private void clear() {
+        // every group in the wheel was made since the last clear, so
+        // emptying their buckets empties the wheel
+        for (int group = 0; group < used; group++) {
+            buckets[(int) (changes[group] & WHEEL_MASK)] = NONE;
+        }
+        free = NONE;
+        used = 0;
+        byEnd.clear();
+    }
+
+    /*
+     * Gets the key of the group with the given phase, end and the step it
+     * changes on, which is either its end or the step after.
+     */
+    private static long key(byte phase, long end, long change) {
+        return (end * 2 + (change - end)) * 4 + phase;
+    }
+
+    /*
+     * Gets the key of a group.
+     */
+    private long key(int group) {
+        return key(phases[group], ends[group], changes[group]);
+    }
+
+    /**
+     * Gets the phase of a group.
+     * @param group to get the phase of
+     * @return the Phase ordinal of the group
+     */
+    byte phase(int group) {
+        return phases[group];
+    }
+
+    /**
+     * Gets the time a group has left in its phase.
+     * @param group to get the time of
+     * @return the number of steps left, never less than 0
+     */
+    int duration(int group) {
+        return (int) (ends[group] - clock);
+    }
+
+    /**
+     * Gets the number of groups in use.
+     * @return the number of groups with at least one slot in them
+     */
+    int groupCount() {
+        int count = used;
+        for (int group = free; group != NONE; group = next[group]) {
+            count--;
+        }
+        return count;
+    }
+
+    /**
+     * Moves a slot into the group with the given phase and time left, which
+     * is made if there is none.
+     * @param from group the slot is in now, or NONE
+     * @param phase Phase ordinal to be in
+     * @param duration number of steps left, at least 0
+     * @return the group the slot is now in
+     */
+    int join(int from, byte phase, long duration) {
+        long end = clock + duration;
+        // with no time left the phase changes on the next step
+        return join(from, phase, end, Math.max(end, clock + 1));
+    }
+
+    /*
+     * Moves a slot into the group with the given phase, end and step it
+     * changes on, which is made if there is none.
+     */
+    private int join(int from, byte phase, long end, long change) {
+        int group = byEnd.get(key(phase, end, change), NONE);
+        if (group == from && group != NONE) {
+            return group;
+        }
+        if (group == NONE) {
+            group = create(phase, end, change);
+        }
+        members[group]++;
+        leave(from);
+        return group;
+    }
+
+    /**
+     * Puts every one of a number of slots in one new group, forgetting any
+     * groups there were.
+     * @param phase Phase ordinal to be in
+     * @param duration number of steps left, at least 0
+     * @param count number of slots in the group
+     * @return the group every slot is now in
+     */
+    int joinAll(byte phase, long duration, int count) {
+        clear();
+        int group = create(phase, clock + duration,
+                Math.max(clock + duration, clock + 1));
+        members[group] = count;
+        return group;
+    }
+
+    /**
+     * Takes a slot out of its group, the group is let go once empty.
+     * @param group the slot is in, or NONE
+     */
+    void leave(int group) {
+        if (group == NONE || --members[group] > 0) {
+            return;
+        }
+        unlink(group);
+        long key = key(group);
+        if (byEnd.get(key, NONE) == group) {
+            byEnd.remove(key);
+        }
+        next[group] = free;
+        free = group;
+    }
+
+    /**
+     * Moves a slot that sits out the next step, as dead ghosts do, into the
+     * group that keeps its phase and time left as they are. Its phase then
+     * changes one step later than it would have, even with no time left.
+     * @param group the slot is in
+     * @return the group the slot is now in
+     */
+    int hold(int group) {
+        return join(group, phases[group], ends[group] + 1,
+                changes[group] + 1);
+    }
+
+    /**
+     * Takes one step for a single slot, when its ghost moves on its own. Its
+     * time left goes down by 1 and if that leaves none it goes to the next
+     * phase.
+     * @param group the slot is in
+     * @return the group the slot is now in
+     */
+    int advance(int group) {
+        long left = Math.max(0, ends[group] - clock - 1);
+        if (left == 0) {
+            byte phase = following(phases[group]);
+            return join(group, phase, GhostEngine.PHASES[phase].getDuration());
+        }
+        return join(group, phases[group], left);
+    }
+
+    /**
+     * Takes one step for every group, changing the phase of each group whose
+     * time has run out.
+     */
+    void step() {
+        clock++;
+        int bucket = (int) (clock & WHEEL_MASK);
+        int group = buckets[bucket];
+        while (group != NONE) {
+            int after = next[group];
+            if (changes[group] == clock) {
+                change(group);
+            }
+            group = after;
+        }
+    }
+
+    /*
+     * Moves a group on to its next phase for the full duration of the phase.
+     */
+    private void change(int group) {
+        long key = key(group);
+        if (byEnd.get(key, NONE) == group) {
+            byEnd.remove(key);
+        }
+        unlink(group);
+        phases[group] = following(phases[group]);
+        ends[group] = clock + GhostEngine.PHASES[phases[group]].getDuration();
+        changes[group] = ends[group];
+        key = key(group);
+        // another group may already be there, both then change together
+        if (!byEnd.containsKey(key)) {
+            byEnd.put(key, group);
+        }
+        link(group);
+    }
+
+    /*
+     * Gets the phase ordinal that follows a phase.
+     */
+    private static byte following(byte phase) {
+        if (phase == Phase.CHASE.ordinal()) {
+            return (byte) Phase.SCATTER.ordinal();
+        }
+        return (byte) Phase.CHASE.ordinal();
+    }
+
+    /*
+     * Makes a group with no slots and schedules it to change on the given
+     * step.
+     */
+    private int create(byte phase, long end, long change) {
+        int group;
+        if (free != NONE) {
+            group = free;
+            free = next[group];
+        } else {
+            if (used == phases.length) {
+                int capacity = used * 2;
+                phases = Arrays.copyOf(phases, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                changes = Arrays.copyOf(changes, capacity);
+                members = Arrays.copyOf(members, capacity);
+                next = Arrays.copyOf(next, capacity);
+                previous = Arrays.copyOf(previous, capacity);
+            }
+            group = used++;
+        }
+        phases[group] = phase;
+        ends[group] = end;
+        changes[group] = change;
+        members[group] = 0;
+        byEnd.put(key(group), group);
+        link(group);
+        return group;
+    }
+
+    /*
+     * Adds a group to the front of the bucket of the step it changes on.
+     */
+    private void link(int group) {
+        int bucket = (int) (changes[group] & WHEEL_MASK);
+        int first = buckets[bucket];
+        previous[group] = NONE;
+        next[group] = first;
+        if (first != NONE) {
+            previous[first] = group;
+        }
+        buckets[bucket] = group;
+    }
+
+    /*
+     * Takes a group out of its bucket.
+     */
+    private void unlink(int group) {
+        int before = previous[group];
+        int after = next[group];
+        if (before == NONE) {
+            buckets[(int) (changes[group] & WHEEL_MASK)] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+    }
+}
@@ -37,30 +37,44 @@ public class Pinky extends Ghost {
      */
     @Override
     public Position chaseTarget(PacmanGame game) {
+        return Position.unpack(packedChaseTarget(game));
+    }
+
+    @Override
+    long packedChaseTarget(PacmanGame game) {
+        return chaseTile(getPackedPosition(), game);
+    }
+
+    /*
+     * Works out chaseTarget(PacmanGame) for a Pinky on the given packed
+     * tile, so GhostEngine can call it without going through the ghost.
+     */
+    static long chaseTile(long ghost, PacmanGame game) {
         // TODO: 11/27/19 ORIGINAL (check Phase) or NEW (no check)?
         // default - no change to current position
-        Position targetPosition = getPosition();
+        long targetPosition = ghost;
         // CHASE - target hunter position
         // if (getPhase() == Phase.CHASE) { -> ORIGINAL
-            int hunterX = game.getHunter().getPosition().getX();
-            int hunterY = game.getHunter().getPosition().getY();
+            long hunter = game.getHunter().getPackedPosition();
+            int hunterX = Position.unpackX(hunter);
+            int hunterY = Position.unpackY(hunter);
             Direction hunterDirection = game.getHunter().getDirection();
             switch (hunterDirection) {
                 case UP:
                     // same x, 4 up for y
-                    targetPosition = new Position(hunterX, hunterY - 4);
+                    targetPosition = Position.pack(hunterX, hunterY - 4);
                     break;
                 case DOWN:
                     // same x, 4 down for y
-                    targetPosition = new Position(hunterX, hunterY + 4);
+                    targetPosition = Position.pack(hunterX, hunterY + 4);
                     break;
                 case RIGHT:
                     // 4 right for x, same y
-                    targetPosition = new Position(hunterX + 4, hunterY);
+                    targetPosition = Position.pack(hunterX + 4, hunterY);
                     break;
                 case LEFT:
                     // 4 left for x, same y
-                    targetPosition = new Position(hunterX - 4, hunterY);
+                    targetPosition = Position.pack(hunterX - 4, hunterY);
                     break;
             }
         //}
@@ -87,6 +101,19 @@ public class Pinky extends Ghost {
 //        return homePosition;
 
         // NEW
-        return new Position(-1, -1);
+        return Position.unpack(packedHome(game));
+    }
+
+    @Override
+    long packedHome(PacmanGame game) {
+        return homeTile(game);
+    }
+
+    /*
+     * Works out home(PacmanGame) for any Pinky, so GhostEngine can call it
+     * without going through the ghost.
+     */
+    static long homeTile(PacmanGame game) {
+        return Position.pack(-1, -1);
     }
 }
\ No newline at end of file
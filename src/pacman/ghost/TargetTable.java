@@ -0,0 +1,110 @@
+package pacman.ghost;
+
+import pacman.board.PacmanBoard;
+import pacman.game.PacmanGame;
+import pacman.util.Position;
+
+/**
+ * The targets of GhostEngine that depend only on the size of the board, worked
+ * out once for a board so targeting is a plain array read.
+ * The frightened target of a tile is
+ *      targetPositionX = (x*24 mod (2 * board width )) - board width,
+ *      targetPositionY = (y*36 mod (2 * board height)) - board height
+ * and as each coordinate only depends on one of x and y they are kept in a
+ * table per axis, a column and a row of the board rather than every tile.
+ * The homes of Blinky, Inky, Pinky and Clyde are kept by GhostType ordinal.
+ */
+class TargetTable {
+    private static final GhostType[] TYPES = GhostType.values();
+
+    private final int width;
+    private final int height;
+    // frightened target coordinate of each column and each row
+    private final int[] frightenedXs;
+    private final int[] frightenedYs;
+    // packed home of each built in GhostType, by ordinal
+    private final long[] homes;
+
+    /**
+     * Works out the targets for the board of a game.
+     * @param game to read the board from
+     */
+    TargetTable(PacmanGame game) {
+        PacmanBoard board = game.getBoard();
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+        this.frightenedXs = new int[width];
+        for (int x = 0; x < width; x++) {
+            frightenedXs[x] = frightenedX(x, width);
+        }
+        this.frightenedYs = new int[height];
+        for (int y = 0; y < height; y++) {
+            frightenedYs[y] = frightenedY(y, height);
+        }
+        this.homes = new long[TYPES.length];
+        for (GhostType type : TYPES) {
+            switch (type) {
+                case BLINKY:
+                    homes[type.ordinal()] = Blinky.homeTile(game);
+                    break;
+                case INKY:
+                    homes[type.ordinal()] = Inky.homeTile(game);
+                    break;
+                case PINKY:
+                    homes[type.ordinal()] = Pinky.homeTile(game);
+                    break;
+                default:
+                    homes[type.ordinal()] = Clyde.homeTile(game);
+                    break;
+            }
+        }
+    }
+
+    /*
+     * Works out the x coordinate of a frightened target.
+     */
+    private static int frightenedX(int x, int width) {
+        return ((x * 24) % (2 * width)) - width;
+    }
+
+    /*
+     * Works out the y coordinate of a frightened target.
+     */
+    private static int frightenedY(int y, int height) {
+        return ((y * 36) % (2 * height)) - height;
+    }
+
+    /**
+     * Checks if the table was worked out for a board of the same size.
+     * @param board to check
+     * @return true if the targets hold for the board
+     */
+    boolean fits(PacmanBoard board) {
+        return board.getWidth() == width && board.getHeight() == height;
+    }
+
+    /**
+     * Gets the frightened target of a ghost on the given tile. Tiles off the
+     * board are worked out as they are not in the table.
+     * @param position packed tile of the ghost
+     * @return the packed target
+     */
+    long frightened(long position) {
+        int x = Position.unpackX(position);
+        int y = Position.unpackY(position);
+        int targetX = x >= 0 && x < width ? frightenedXs[x]
+                : frightenedX(x, width);
+        int targetY = y >= 0 && y < height ? frightenedYs[y]
+                : frightenedY(y, height);
+        return Position.pack(targetX, targetY);
+    }
+
+    /**
+     * Gets the home of a built in kind of ghost.
+     * @param kind GhostType ordinal of the ghost
+     * @return the packed home
+     */
+    long home(int kind) {
+        return homes[kind];
+    }
+}
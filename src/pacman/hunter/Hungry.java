@@ -1,7 +1,6 @@
 package pacman.hunter;
 
 import pacman.ghost.Ghost;
-import pacman.util.Position;
 
 /**
  * A Hungry hunter that has a special ability that allows the hunter
@@ -32,12 +31,8 @@ public class Hungry extends Hunter {
      */
     @Override
     public void hit(Ghost ghost) {
-        Position ghostPosition = ghost.getPosition();
-        Position myPosition = this.getPosition();
-
-        // TODO: 11/24/19 Check names in solution (want smaller)
         // Check if position of hunter and ghost has same x and y
-        if (myPosition.getX() == ghostPosition.getX() && myPosition.getY() == ghostPosition.getY()) {
+        if (this.getPackedPosition() == ghost.getPackedPosition()) {
             if (this.isSpecialActive()) {
                 ghost.kill();
             } else {
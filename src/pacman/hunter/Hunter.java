@@ -107,12 +107,8 @@ public abstract class Hunter extends Entity {
             throw new NullPointerException();
         }
 
-        Position ghostPosition = ghost.getPosition();
-        Position myPosition = getPosition();
-
-        // TODO: 11/24/19 - check names to make shorter
         // Compare if X and Y of hunter and ghost are the same
-        if (myPosition.getX() == ghostPosition.getX() && myPosition.getY() == ghostPosition.getY()) {
+        if (getPackedPosition() == ghost.getPackedPosition()) {
             if (ghost.getPhase() == Phase.FRIGHTENED) {
                 ghost.kill();
             } else {
@@ -133,7 +129,7 @@ public abstract class Hunter extends Entity {
         dead = false;
         used = false;
         duration = 0;
-        setPosition(new Position(0,0));
+        setPackedPosition(Position.pack(0, 0));
         setDirection(Direction.UP);
     }
 
@@ -209,29 +205,24 @@ public abstract class Hunter extends Entity {
     @Override
     public void move(PacmanGame game) {
         PacmanBoard board = game.getBoard();
-        try {
-            // get the new position that is one step forward of direction
-            int newX = getPosition().getX() + getDirection().offset().getX();
-            int newY = getPosition().getY() + getDirection().offset().getY();
-            Position newPosition = new Position(newX, newY);
-            BoardItem item = board.getEntry(newPosition);
-            // check if position is pathable, else dont move
-            if (item.getPathable()) {
-                // move hunter
-                setPosition(newPosition);
-                // eat item
-                board.eatDot(getPosition());
-                // check if item was BIG_DOT
-                if (item == BoardItem.BIG_DOT) {
-                    // Yes so set all ghosts to frightened
-                    game.setGhostsFrightened();
-                }
-                // add score
-                game.getScores().increaseScore(item.getScore());
+        // get the new position that is one step forward of direction
+        int x = Position.unpackX(getPackedPosition());
+        int y = Position.unpackY(getPackedPosition());
+        int newX = x + getDirection().getX();
+        int newY = y + getDirection().getY();
+        // check if position is pathable (off the board is not), else dont move
+        if ((board.getNeighbours(x, y) & getDirection().mask()) != 0) {
+            // move hunter
+            setPackedPosition(Position.pack(newX, newY));
+            // eat item
+            BoardItem item = board.eatDot(newX, newY);
+            // check if item was BIG_DOT
+            if (item == BoardItem.BIG_DOT) {
+                // Yes so set all ghosts to frightened
+                game.setGhostsFrightened();
             }
-        } catch (IndexOutOfBoundsException e) {
-            // position is out of bounds, so dont move
-            ;
+            // add score
+            game.getScores().increaseScore(item.getScore());
         }
         // decrease ticks
         if (duration > 0) {
@@ -12,15 +12,44 @@ public enum Direction {
 
     private final int x;
     private final int y;
+    // Position is immutable so one offset can be handed out to everyone
+    private final Position offset;
 
     private Direction(int x, int y) {
         this.x = x;
         this.y = y;
+        this.offset = new Position(x, y);
     }
 
-    /** Gets the offset associated with this direction.*/
+    /** Gets the offset associated with this direction, the same Position is
+     * returned on every call.*/
     public Position offset() {
-        return new Position(this.x, this.y);
+        return offset;
+    }
+
+    /**
+     * Gets the x part of the offset, without creating a Position.
+     * @return the change in x when moving in this direction.
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Gets the y part of the offset, without creating a Position.
+     * @return the change in y when moving in this direction.
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Gets the bit for this direction in a direction mask, where each
+     * direction has its own bit.
+     * @return a mask with only this direction set.
+     */
+    public int mask() {
+        return 1 << ordinal();
     }
 
     /**Gets the opposite direction to this direction.*/
@@ -41,6 +41,79 @@ public class Position {
                 + Math.pow(this.getY() - other.getY(), 2));
     }
 
+    /**
+     * Calculates the squared Euclidean distance from this point to other
+     * given point. Comparing squared distances picks the same closest point
+     * as comparing distance(Position), without Math.pow or Math.sqrt.
+     * @param other point to calc distance too.
+     * @return the squared euclidean distance
+     */
+    public long distanceSquared(Position other) {
+        long dx = (long) this.x - other.x;
+        long dy = (long) this.y - other.y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Packs coordinates into a single long, x in the high 32 bits and y in
+     * the low 32 bits, so a position can be kept, compared and passed around
+     * without creating a Position. Negative coordinates are kept.
+     * @param x location
+     * @param y location
+     * @return the packed coordinates
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the x coordinate from coordinates packed by pack(int, int).
+     * @param packed coordinates
+     * @return x location
+     */
+    public static int unpackX(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * Gets the y coordinate from coordinates packed by pack(int, int).
+     * @param packed coordinates
+     * @return y location
+     */
+    public static int unpackY(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Creates a position from coordinates packed by pack(int, int).
+     * @param packed coordinates
+     * @return a new position at the packed coordinates
+     */
+    public static Position unpack(long packed) {
+        return new Position(unpackX(packed), unpackY(packed));
+    }
+
+    /**
+     * Packs this position, see pack(int, int).
+     * @return the packed coordinates of this position
+     */
+    public long pack() {
+        return pack(x, y);
+    }
+
+    /**
+     * Calculates the squared Euclidean distance between packed coordinates,
+     * the same as distanceSquared(Position) without creating a Position.
+     * @param from coordinates packed by pack(int, int)
+     * @param to coordinates packed by pack(int, int)
+     * @return the squared euclidean distance
+     */
+    public static long distanceSquared(long from, long to) {
+        long dx = (long) unpackX(from) - unpackX(to);
+        long dy = (long) unpackY(from) - unpackY(to);
+        return dx * dx + dy * dy;
+    }
+
     /**
      * Adds two positions together.
      * @param other position to add to this line
@@ -0,0 +1,239 @@
+package pacman.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from positions packed by Position.pack(int, int) to int values,
+ * for counts and other bookkeeping kept per tile. Keys and values are held in
+ * plain arrays with open addressing, so unlike a HashMap of Position to
+ * Integer nothing is boxed and no entry objects are created, and the packed
+ * coordinates are spread well whatever the x and y.
+ */
+public class PositionMap {
+    // Long.MIN_VALUE marks an empty slot, the key it stands for is kept apart
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private int[] values;
+    // number of keys held in the arrays, not counting the EMPTY key
+    private int used;
+    private int shift;
+
+    private boolean hasEmptyKey;
+    private int emptyKeyValue;
+
+    /**
+     * Creates an empty map.
+     */
+    public PositionMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map with room for the given number of keys before it
+     * needs to grow.
+     * @param expected number of keys the map will hold
+     * @throws IllegalArgumentException if expected is negative
+     */
+    public PositionMap(int expected) throws IllegalArgumentException {
+        if (expected < 0) {
+            throw new IllegalArgumentException();
+        }
+        allocate(PositionSet.capacityFor(expected));
+    }
+
+    /*
+     * Replaces the arrays with empty ones of the given power of two size.
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        used = 0;
+    }
+
+    /*
+     * Gets the slot of key, or of the empty slot where it would go.
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = PositionSet.hash(key, shift);
+        while (keys[slot] != key && keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the number of keys in the map.
+     * @return the size of the map
+     */
+    public int size() {
+        return used + (hasEmptyKey ? 1 : 0);
+    }
+
+    /**
+     * Checks if the map holds no keys.
+     * @return true if size() is 0
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Checks if the map holds a key.
+     * @param key packed position
+     * @return true if the map has a value for key
+     */
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return hasEmptyKey;
+        }
+        return keys[slot(key)] == key;
+    }
+
+    /**
+     * Gets the value for a key.
+     * @param key packed position
+     * @param missing value to return if the map does not hold key
+     * @return the value for key, or missing if there is none
+     */
+    public int get(long key, int missing) {
+        if (key == EMPTY) {
+            return hasEmptyKey ? emptyKeyValue : missing;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : missing;
+    }
+
+    /**
+     * Sets the value for a key, replacing any value it had.
+     * @param key packed position
+     * @param value to set
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            hasEmptyKey = true;
+            emptyKeyValue = value;
+            return;
+        }
+        int slot = slot(key);
+        values[slot] = value;
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            added();
+        }
+    }
+
+    /**
+     * Adds an amount to the value for a key, a key not in the map starts
+     * at 0.
+     * @param key packed position
+     * @param amount to add
+     * @return the new value for key
+     */
+    public int add(long key, int amount) {
+        if (key == EMPTY) {
+            emptyKeyValue = hasEmptyKey ? emptyKeyValue + amount : amount;
+            hasEmptyKey = true;
+            return emptyKeyValue;
+        }
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            return values[slot] += amount;
+        }
+        keys[slot] = key;
+        values[slot] = amount;
+        added();
+        return amount;
+    }
+
+    /*
+     * Counts a newly used slot, growing the arrays past half full.
+     */
+    private void added() {
+        used++;
+        if (used > keys.length >> 1) {
+            if (keys.length == MAX_CAPACITY) {
+                throw new IllegalStateException("position map is full");
+            }
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate(keys.length << 1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    used++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a key and its value from the map.
+     * @param key packed position
+     * @return true if the map held key
+     */
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            boolean had = hasEmptyKey;
+            hasEmptyKey = false;
+            return had;
+        }
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            return false;
+        }
+        // shift later keys of the run back so no lookup stops early
+        int mask = keys.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long moving = keys[next];
+            if (moving == EMPTY) {
+                break;
+            }
+            int home = PositionSet.hash(moving, shift);
+            // move it if its home slot is not between the gap and next
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = moving;
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        keys[slot] = EMPTY;
+        used--;
+        return true;
+    }
+
+    /**
+     * Removes every key from the map, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        used = 0;
+        hasEmptyKey = false;
+    }
+
+    /**
+     * Gets every key in the map, in no particular order.
+     * @return a new array of the packed positions in the map
+     */
+    public long[] keys() {
+        long[] result = new long[size()];
+        int count = 0;
+        if (hasEmptyKey) {
+            result[count++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,213 @@
+package pacman.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash set of positions packed by Position.pack(int, int), for marking
+ * visited tiles and similar bookkeeping. The keys are held in a plain array
+ * with open addressing, so unlike a HashSet of Position nothing is boxed and
+ * the packed coordinates are spread well whatever the x and y.
+ */
+public class PositionSet {
+    // Long.MIN_VALUE marks an empty slot, the key it stands for is kept apart
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MAX_CAPACITY = 1 << 30;
+    // 2^64 divided by the golden ratio, spreads keys over the high bits
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    // number of keys held in the array, not counting the EMPTY key
+    private int used;
+    private int shift;
+
+    private boolean hasEmptyKey;
+
+    /**
+     * Creates an empty set.
+     */
+    public PositionSet() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty set with room for the given number of keys before it
+     * needs to grow.
+     * @param expected number of keys the set will hold
+     * @throws IllegalArgumentException if expected is negative
+     */
+    public PositionSet(int expected) throws IllegalArgumentException {
+        if (expected < 0) {
+            throw new IllegalArgumentException();
+        }
+        allocate(capacityFor(expected));
+    }
+
+    /*
+     * Gets the power of two table size that holds expected keys at most half
+     * full.
+     */
+    static int capacityFor(int expected) {
+        long capacity = Long.highestOneBit(Math.max(4L, 2L * expected) - 1) << 1;
+        return (int) Math.min(capacity, MAX_CAPACITY);
+    }
+
+    /*
+     * Gets the home slot of key in a table of 2^(64 - shift) slots.
+     */
+    static int hash(long key, int shift) {
+        return (int) ((key * SPREAD) >>> shift);
+    }
+
+    /*
+     * Replaces the array with an empty one of the given power of two size.
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        used = 0;
+    }
+
+    /*
+     * Gets the slot of key, or of the empty slot where it would go.
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key, shift);
+        while (keys[slot] != key && keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the number of keys in the set.
+     * @return the size of the set
+     */
+    public int size() {
+        return used + (hasEmptyKey ? 1 : 0);
+    }
+
+    /**
+     * Checks if the set holds no keys.
+     * @return true if size() is 0
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Checks if the set holds a key.
+     * @param key packed position
+     * @return true if key is in the set
+     */
+    public boolean contains(long key) {
+        if (key == EMPTY) {
+            return hasEmptyKey;
+        }
+        return keys[slot(key)] == key;
+    }
+
+    /**
+     * Adds a key to the set.
+     * @param key packed position
+     * @return true if key was not already in the set
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            boolean added = !hasEmptyKey;
+            hasEmptyKey = true;
+            return added;
+        }
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            return false;
+        }
+        keys[slot] = key;
+        used++;
+        if (used > keys.length >> 1) {
+            grow();
+        }
+        return true;
+    }
+
+    /*
+     * Doubles the size of the array, putting every key back.
+     */
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("position set is full");
+        }
+        long[] oldKeys = keys;
+        allocate(keys.length << 1);
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                keys[slot(key)] = key;
+                used++;
+            }
+        }
+    }
+
+    /**
+     * Removes a key from the set.
+     * @param key packed position
+     * @return true if the set held key
+     */
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            boolean had = hasEmptyKey;
+            hasEmptyKey = false;
+            return had;
+        }
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            return false;
+        }
+        // shift later keys of the run back so no lookup stops early
+        int mask = keys.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long moving = keys[next];
+            if (moving == EMPTY) {
+                break;
+            }
+            int home = hash(moving, shift);
+            // move it if its home slot is not between the gap and next
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = moving;
+                slot = next;
+            }
+        }
+        keys[slot] = EMPTY;
+        used--;
+        return true;
+    }
+
+    /**
+     * Removes every key from the set, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        used = 0;
+        hasEmptyKey = false;
+    }
+
+    /**
+     * Gets every key in the set, in no particular order.
+     * @return a new array of the packed positions in the set
+     */
+    public long[] toArray() {
+        long[] result = new long[size()];
+        int count = 0;
+        if (hasEmptyKey) {
+            result[count++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,134 @@
+package pacman;
+
+import org.junit.Before;
+import org.junit.Test;
+import pacman.board.BoardItem;
+import pacman.board.PacmanBoard;
+import pacman.board.StorageType;
+import pacman.game.GameReader;
+import pacman.game.PacmanGame;
+import pacman.hunter.Speedy;
+import pacman.util.Direction;
+import pacman.util.Position;
+import pacman.util.UnpackableException;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SimulatorTest {
+    private PacmanGame game;
+
+    @Before
+    public void setUp() {
+        // dots everywhere so the level is not over straight away
+        PacmanBoard board = new PacmanBoard(10, 6, StorageType.ARRAY,
+                BoardItem.DOT);
+        board.setEntry(new Position(1, 1), BoardItem.PACMAN_SPAWN);
+        board.setEntry(new Position(8, 4), BoardItem.GHOST_SPAWN);
+        game = new PacmanGame("simulator", "author", new Speedy(), board);
+        game.getHunter().setPosition(board.getPacmanSpawn());
+    }
+
+    /*
+     * Reads one of the maps shipped with the game.
+     */
+    private static PacmanGame map(String name)
+            throws UnpackableException, IOException {
+        try (Reader reader = new FileReader("maps/" + name)) {
+            return GameReader.read(reader);
+        }
+    }
+
+    @Test
+    public void scriptTest() {
+        // key presses steer the hunter before the tick they are given for
+        Simulator simulator = new Simulator(game);
+        simulator.press(0, "d");
+        simulator.press(3, "S");
+        Simulator.Result result = simulator.run(5);
+        assertEquals(5, result.getTicks());
+        assertEquals(new Position(4, 3), game.getHunter().getPosition());
+        assertEquals(Direction.DOWN, game.getHunter().getDirection());
+        assertEquals(5, game.getTick());
+        assertEquals(false, result.isGameOver());
+        assertEquals(5, result.getCurrentLife());
+    }
+
+    @Test
+    public void readScriptTest() throws UnpackableException, IOException {
+        Simulator simulator = new Simulator(game);
+        simulator.readScript(new StringReader(
+                "; across then down\n0 D\n\n3 s\n3 O\n"));
+        simulator.run(5);
+        // Speedy's special moves it twice a tick, until the wall stops it
+        assertEquals(new Position(4, 4), game.getHunter().getPosition());
+        assertEquals(true, game.getHunter().isSpecialActive());
+    }
+
+    @Test(expected = UnpackableException.class)
+    public void readScriptBadTickTest()
+            throws UnpackableException, IOException {
+        new Simulator(game).readScript(new StringReader("soon W\n"));
+    }
+
+    @Test(expected = UnpackableException.class)
+    public void readScriptBadKeyTest()
+            throws UnpackableException, IOException {
+        new Simulator(game).readScript(new StringReader("4 Q\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pressNegativeTest() {
+        new Simulator(game).press(-1, "W");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullGameTest() {
+        new Simulator(null);
+    }
+
+    @Test
+    public void gameOverTest() throws UnpackableException, IOException {
+        // every life is counted until the game ends
+        PacmanGame game = map("game1_default.map");
+        int lives = game.getLives();
+        Simulator simulator = new Simulator(game);
+        simulator.setBot(new Random(3));
+        Simulator.Result result = simulator.run(Integer.MAX_VALUE);
+        assertEquals(true, result.isGameOver());
+        assertEquals(-1, result.getCurrentLife());
+        assertEquals(lives, result.getLives().size());
+        int total = 0;
+        for (int life : result.getLives()) {
+            assertTrue(life > 0);
+            total += life;
+        }
+        assertEquals(result.getTicks(), total);
+        assertEquals(game.getScores().getScore(), result.getScore());
+        assertEquals(game.getLevel(), result.getLevel());
+        // a game that is over runs no more ticks
+        assertEquals(0, simulator.run(10).getTicks());
+    }
+
+    @Test
+    public void botTest() throws UnpackableException, IOException {
+        // the same seed plays the same game, and eats more than going
+        // straight ahead does
+        Simulator.Result[] results = new Simulator.Result[2];
+        for (int i = 0; i < results.length; i++) {
+            Simulator simulator = new Simulator(map("game2_big.map"));
+            simulator.setBot(new Random(17));
+            results[i] = simulator.run(2000);
+        }
+        assertEquals(results[0].getTicks(), results[1].getTicks());
+        assertEquals(results[0].getScore(), results[1].getScore());
+        assertEquals(results[0].getLives(), results[1].getLives());
+        Simulator idle = new Simulator(map("game2_big.map"));
+        assertTrue(results[0].getScore() > idle.run(2000).getScore());
+    }
+}
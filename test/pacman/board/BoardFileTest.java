@@ -0,0 +1,127 @@
+package pacman.board;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pacman.util.Position;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BoardFileTest {
+    private PacmanBoard board;
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        board = new PacmanBoard(6, 5);
+        board.setEntry(new Position(2, 2), BoardItem.WALL);
+        board.setEntry(new Position(1, 1), BoardItem.PACMAN_SPAWN);
+        board.setEntry(new Position(4, 3), BoardItem.GHOST_SPAWN);
+        board.setEntry(new Position(4, 1), BoardItem.BIG_DOT);
+        board.setEntry(new Position(3, 1), BoardItem.NONE);
+        file = Files.createTempFile("board", ".pmb");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void roundTripTest() throws IOException {
+        BoardFile.write(board, file);
+        assertEquals(12 + 6 * 5, Files.size(file));
+        PacmanBoard mapped = BoardFile.map(file);
+        assertEquals(StorageType.OFF_HEAP, mapped.getStorageType());
+        assertEquals(board, mapped);
+        assertEquals(board.toString(), mapped.toString());
+        assertEquals(new Position(1, 1), mapped.getPacmanSpawn());
+        assertEquals(new Position(4, 3), mapped.getGhostSpawn());
+        assertEquals(board.getZobristHash(), mapped.getZobristHash());
+        mapped.close();
+    }
+
+    @Test
+    public void mappedResetTest() throws IOException {
+        // dots and big dots in the file come back on reset
+        board.setEntry(new Position(1, 2), BoardItem.NONE);
+        board.setEntry(new Position(4, 1), BoardItem.BIG_DOT_SPAWN);
+        BoardFile.write(board, file);
+        PacmanBoard mapped = BoardFile.map(file);
+        mapped.reset();
+        board.reset();
+        assertEquals(board.toString(), mapped.toString());
+        assertEquals(BoardItem.BIG_DOT, mapped.getEntry(new Position(4, 1)));
+        mapped.close();
+    }
+
+    @Test
+    public void mappedEditTest() throws IOException {
+        // changes to a mapped board never reach the file
+        BoardFile.write(board, file);
+        byte[] written = Files.readAllBytes(file);
+        PacmanBoard mapped = BoardFile.map(file);
+        mapped.setEntry(new Position(3, 3), BoardItem.WALL);
+        mapped.setEntry(new Position(1, 1), BoardItem.NONE);
+        assertEquals(BoardItem.WALL, mapped.getEntry(new Position(3, 3)));
+        assertArrayEquals(written, Files.readAllBytes(file));
+        assertEquals(board, BoardFile.map(file));
+        mapped.close();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void writeNullTest() throws IOException {
+        BoardFile.write(null, file);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void mapNullTest() throws IOException {
+        BoardFile.map(null);
+    }
+
+    @Test(expected = IOException.class)
+    public void mapTextTest() throws IOException {
+        Files.write(file, board.toString().getBytes());
+        BoardFile.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void mapShortTest() throws IOException {
+        // header says 6x5 but a row is missing
+        BoardFile.write(board, file);
+        byte[] written = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(written, written.length - 6));
+        BoardFile.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void mapBadTileTest() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                Files.newOutputStream(file))) {
+            out.writeInt(0x504D4231);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeByte(100);
+        }
+        BoardFile.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void mapTwoSpawnsTest() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                Files.newOutputStream(file))) {
+            out.writeInt(0x504D4231);
+            out.writeInt(2);
+            out.writeInt(1);
+            out.writeByte(BoardItem.PACMAN_SPAWN.ordinal());
+            out.writeByte(BoardItem.PACMAN_SPAWN.ordinal());
+        }
+        BoardFile.map(file);
+    }
+}
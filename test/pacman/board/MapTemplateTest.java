@@ -0,0 +1,141 @@
+package pacman.board;
+
+import org.junit.Before;
+import org.junit.Test;
+import pacman.util.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MapTemplateTest {
+    private PacmanBoard board;
+    private MapTemplate template;
+
+    @Before
+    public void setUp() throws Exception {
+        board = new PacmanBoard(6, 5);
+        board.setEntry(new Position(2, 2), BoardItem.WALL);
+        board.setEntry(new Position(1, 1), BoardItem.PACMAN_SPAWN);
+        board.setEntry(new Position(4, 3), BoardItem.GHOST_SPAWN);
+        board.setEntry(new Position(4, 1), BoardItem.BIG_DOT_SPAWN);
+        board.reset();
+        template = new MapTemplate(board);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullBoardTest() {
+        new MapTemplate(null);
+    }
+
+    @Test
+    public void createBoardTest() {
+        // every session starts as the board the template was made from
+        PacmanBoard session = template.createBoard();
+        assertEquals(board, session);
+        assertEquals(board.toString(), session.toString());
+        assertEquals(6, template.getWidth());
+        assertEquals(5, template.getHeight());
+        assertEquals(new Position(1, 1), session.getPacmanSpawn());
+        assertEquals(new Position(4, 3), session.getGhostSpawn());
+        assertEquals(board.getRemainingDots(), session.getRemainingDots());
+        assertEquals(1, session.getRemainingBigDots());
+    }
+
+    @Test
+    public void createBoardIndependentTest() {
+        // sessions, the template and the original board never see each
+        // other's changes
+        PacmanBoard first = template.createBoard();
+        PacmanBoard second = template.createBoard();
+        first.eatDot(new Position(3, 1));
+        first.eatDot(new Position(4, 1));
+        second.setEntry(new Position(3, 1), BoardItem.WALL);
+        board.setEntry(new Position(1, 3), BoardItem.WALL);
+
+        assertEquals(BoardItem.NONE, first.getEntry(new Position(3, 1)));
+        assertEquals(BoardItem.BIG_DOT_SPAWN, first.getEntry(new Position(4, 1)));
+        assertEquals(BoardItem.WALL, second.getEntry(new Position(3, 1)));
+        assertEquals(BoardItem.DOT, first.getEntry(new Position(1, 3)));
+        PacmanBoard third = template.createBoard();
+        assertEquals(BoardItem.DOT, third.getEntry(new Position(3, 1)));
+        assertEquals(BoardItem.BIG_DOT, third.getEntry(new Position(4, 1)));
+        assertEquals(BoardItem.DOT, third.getEntry(new Position(1, 3)));
+    }
+
+    @Test
+    public void createBoardSharedTest() {
+        // the adjacency and junction table are worked out once, up front
+        PacmanBoard session = template.createBoard();
+        assertEquals(true, session.getMazeDistanceFootprint() > 0);
+        assertEquals(board.getZobristHash(), session.getZobristHash());
+        assertEquals(4, session.getMazeDistance(1, 1, 3, 3));
+        session.eatDot(new Position(1, 2));
+        assertEquals(4, session.getMazeDistance(1, 1, 3, 3));
+    }
+
+    @Test
+    public void createBoardMemoryTest() {
+        // 1,000 sessions each eating along a row only pay for what they eat,
+        // full copies of a 500x500 board would need over 1GB
+        PacmanBoard large = new PacmanBoard(500, 500, StorageType.PACKED);
+        large.reset();
+        MapTemplate largeTemplate = new MapTemplate(large);
+        List<PacmanBoard> sessions = new ArrayList<>(1000);
+        long before = usedMemory();
+        for (int i = 0; i < 1000; i++) {
+            PacmanBoard session = largeTemplate.createBoard();
+            for (int x = 1; x < 499; x++) {
+                session.eatDot(new Position(x, 1 + i % 498));
+            }
+            sessions.add(session);
+        }
+        long used = usedMemory() - before;
+        assertEquals("used " + used, true, used < 16L * 1024 * 1024);
+        assertEquals(498 * 498 - 498, sessions.get(999).getRemainingDots());
+    }
+
+    @Test
+    public void createBoardThreadsTest() throws InterruptedException {
+        // sessions made and played on different threads at once
+        List<Thread> threads = new ArrayList<>();
+        List<PacmanBoard> sessions = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int row = 1 + t % 3;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    PacmanBoard session = template.createBoard();
+                    session.eatDot(new Position(3, row));
+                    synchronized (sessions) {
+                        sessions.add(session);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(800, sessions.size());
+        for (PacmanBoard session : sessions) {
+            assertEquals(board.getRemainingDots() + board.getRemainingBigDots()
+                    - 1, session.getRemainingDots()
+                    + session.getRemainingBigDots());
+        }
+        assertEquals(board, template.createBoard());
+    }
+
+    /*
+     * Gets the heap in use after asking for a garbage collection.
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
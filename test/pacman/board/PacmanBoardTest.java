@@ -3,8 +3,16 @@ package pacman.board;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import pacman.util.Direction;
 import pacman.util.Position;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class PacmanBoardTest {
@@ -366,6 +374,280 @@ public class PacmanBoardTest {
         board.getEntry(new Position(5,6));
     }
 
+    /**
+     * isPathable tests
+     */
+    @Test
+    public void isPathableItemsTest() {
+        // walls are the only item that cannot be moved into
+        assertEquals(false, board.isPathable(0, 0));
+        assertEquals(true, board.isPathable(1, 1));
+        for (BoardItem item : BoardItem.values()) {
+            board.setEntry(positionMiddleBoard, item);
+            assertEquals(item.getPathable(), board.isPathable(1, 2));
+        }
+    }
+
+    @Test
+    public void isPathableOffBoardTest() {
+        // off the board is treated as a wall instead of throwing
+        board.setEntry(positionTopLeft, BoardItem.NONE);
+        board.setEntry(positionBottomRightBoard, BoardItem.NONE);
+        assertEquals(true, board.isPathable(0, 0));
+        assertEquals(true, board.isPathable(3, 4));
+        assertEquals(false, board.isPathable(-1, 0));
+        assertEquals(false, board.isPathable(0, -1));
+        assertEquals(false, board.isPathable(4, 4));
+        assertEquals(false, board.isPathable(3, 5));
+        assertEquals(false, board.isPathable(Integer.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    /**
+     * getNeighbours tests
+     */
+    @Test
+    public void getNeighboursDefaultTest() {
+        // (1, 1) can go right and down, (1, 2) up, down and right
+        int right = Direction.RIGHT.mask();
+        int down = Direction.DOWN.mask();
+        int up = Direction.UP.mask();
+        int left = Direction.LEFT.mask();
+        assertEquals(right | down, board.getNeighbours(1, 1));
+        assertEquals(up | down | right, board.getNeighbours(1, 2));
+        // wall tiles still know their neighbours, off the board counts as wall
+        assertEquals(right, board.getNeighbours(0, 1));
+        assertEquals(0, board.getNeighbours(0, 0));
+        assertEquals(0, board.getNeighbours(-1, 2));
+        board.setEntry(new Position(0, 2), BoardItem.NONE);
+        assertEquals(right, board.getNeighbours(-1, 2));
+        assertEquals(left | right | up | down, board.getNeighbours(1, 2));
+    }
+
+    @Test
+    public void getNeighboursWallChangeTest() {
+        // placing and removing a wall updates the tiles around it
+        board.getNeighbours(1, 1);
+        board.setEntry(positionMiddleBoard, BoardItem.WALL);
+        assertEquals(Direction.RIGHT.mask(), board.getNeighbours(1, 1));
+        assertEquals(0, board.getNeighbours(1, 3) & Direction.UP.mask());
+        board.setEntry(positionMiddleBoard, BoardItem.DOT);
+        assertEquals(Direction.RIGHT.mask() | Direction.DOWN.mask(),
+                board.getNeighbours(1, 1));
+        // copies keep their own table
+        PacmanBoard copy = new PacmanBoard(board);
+        copy.setEntry(new Position(2, 1), BoardItem.WALL);
+        assertEquals(Direction.DOWN.mask(), copy.getNeighbours(1, 1));
+        assertEquals(Direction.RIGHT.mask() | Direction.DOWN.mask(),
+                board.getNeighbours(1, 1));
+    }
+
+    @Test
+    public void getNeighboursRandomEditsTest() {
+        // table always agrees with isPathable around each tile
+        Random random = new Random(2006);
+        BoardItem[] items = BoardItem.values();
+        PacmanBoard randomBoard = new PacmanBoard(7, 6, StorageType.PACKED);
+        randomBoard.getNeighbours(0, 0);
+        for (int i = 0; i < 2000; i++) {
+            randomBoard.setEntry(new Position(random.nextInt(7), random.nextInt(6)),
+                    items[random.nextInt(items.length)]);
+            for (int x = 0; x < 7; x++) {
+                for (int y = 0; y < 6; y++) {
+                    int expected = 0;
+                    for (Direction direction : Direction.values()) {
+                        if (randomBoard.isPathable(x + direction.getX(),
+                                y + direction.getY())) {
+                            expected |= direction.mask();
+                        }
+                    }
+                    assertEquals(expected, randomBoard.getNeighbours(x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * distance tests
+     */
+    @Test
+    public void getDistanceNoneTest() {
+        // nothing worked out yet
+        assertEquals(-1, board.getDistance(1, 1));
+    }
+
+    @Test
+    public void updateDistancesTest() {
+        // walls are walked around, walls and off the board are unreachable
+        board.setEntry(new Position(2, 2), BoardItem.WALL);
+        board.updateDistances(1, 1);
+        assertEquals(0, board.getDistance(1, 1));
+        assertEquals(1, board.getDistance(2, 1));
+        assertEquals(2, board.getDistance(1, 3));
+        assertEquals(3, board.getDistance(2, 3));
+        assertEquals(-1, board.getDistance(2, 2));
+        assertEquals(-1, board.getDistance(0, 0));
+        assertEquals(-1, board.getDistance(-1, 1));
+        // moving the source reuses the field
+        board.updateDistances(2, 3);
+        assertEquals(3, board.getDistance(1, 1));
+        assertEquals(0, board.getDistance(2, 3));
+        // a source off the board reaches nothing
+        board.updateDistances(-3, 1);
+        assertEquals(-1, board.getDistance(1, 1));
+    }
+
+    @Test
+    public void updateDistancesClosedOffTest() {
+        // a wall across the board splits it in two
+        board.setEntry(positionMiddleBoard, BoardItem.WALL);
+        board.setEntry(new Position(2, 2), BoardItem.WALL);
+        board.updateDistances(1, 1);
+        assertEquals(1, board.getDistance(2, 1));
+        assertEquals(-1, board.getDistance(1, 3));
+        assertEquals(-1, board.getDistance(2, 3));
+    }
+
+    /*
+     * Checks getMazeDistance against a search from every tile of the board.
+     */
+    private void assertMazeDistances(PacmanBoard maze) {
+        PacmanBoard search = new PacmanBoard(maze);
+        for (int fromY = 0; fromY < maze.getHeight(); fromY++) {
+            for (int fromX = 0; fromX < maze.getWidth(); fromX++) {
+                search.updateDistances(fromX, fromY);
+                for (int toY = 0; toY < maze.getHeight(); toY++) {
+                    for (int toX = 0; toX < maze.getWidth(); toX++) {
+                        int expected = maze.isPathable(fromX, fromY)
+                                && maze.isPathable(toX, toY)
+                                ? search.getDistance(toX, toY) : -1;
+                        assertEquals("(" + fromX + "," + fromY + ") to ("
+                                        + toX + "," + toY + ")", expected,
+                                maze.getMazeDistance(fromX, fromY, toX, toY));
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Builds a board from rows of BoardItem keys.
+     */
+    private PacmanBoard mazeOf(String... rows) {
+        PacmanBoard maze = new PacmanBoard(rows[0].length(), rows.length);
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < rows[y].length(); x++) {
+                maze.setEntry(new Position(x, y),
+                        BoardItem.getItem(rows[y].charAt(x)));
+            }
+        }
+        return maze;
+    }
+
+    @Test
+    public void getMazeDistanceTableTest() {
+        // junctions, dead ends, a loop with no junctions and a closed off room
+        PacmanBoard maze = mazeOf(
+                "XXXXXXXXXX",
+                "X0000X000X",
+                "X0X0XX0X0X",
+                "X0000X000X",
+                "XX0XXXXXXX",
+                "X00000X00X",
+                "XXXXX0XXXX",
+                "XXXXXXXXXX");
+        assertEquals(0, maze.getMazeDistanceFootprint());
+        assertTrue(maze.prepareMazeDistances());
+        assertTrue(maze.getMazeDistanceFootprint() > 0);
+        assertEquals(2, maze.getMazeDistance(1, 1, 3, 1));
+        assertEquals(4, maze.getMazeDistance(6, 1, 8, 3));
+        assertEquals(-1, maze.getMazeDistance(1, 1, 6, 1));
+        assertEquals(-1, maze.getMazeDistance(1, 1, 0, 0));
+        assertEquals(-1, maze.getMazeDistance(1, 1, -1, 1));
+        assertMazeDistances(maze);
+    }
+
+    @Test
+    public void getMazeDistanceSearchTest() {
+        // too big for the table, found by searching instead
+        PacmanBoard maze = mazeOf(
+                "XXXXXX",
+                "X0000X",
+                "X0XX0X",
+                "X0000X",
+                "XXXXXX");
+        assertFalse(maze.prepareMazeDistances(0));
+        assertEquals(0, maze.getMazeDistanceFootprint());
+        assertEquals(4, maze.getMazeDistance(1, 1, 3, 3));
+        assertEquals(-1, maze.getMazeDistance(1, 1, 2, 2));
+        assertMazeDistances(maze);
+    }
+
+    @Test
+    public void getMazeDistanceWallChangeTest() {
+        // the table is dropped when the maze changes, but not for dots
+        PacmanBoard maze = mazeOf(
+                "XXXXXX",
+                "X0000X",
+                "X0XX0X",
+                "X0000X",
+                "XXXXXX");
+        assertTrue(maze.prepareMazeDistances());
+        maze.eatDot(new Position(2, 1));
+        assertTrue(maze.getMazeDistanceFootprint() > 0);
+        PacmanBoard copy = new PacmanBoard(maze);
+        assertEquals(maze.getMazeDistanceFootprint(),
+                copy.getMazeDistanceFootprint());
+
+        maze.setEntry(new Position(2, 1), BoardItem.WALL);
+        assertEquals(0, maze.getMazeDistanceFootprint());
+        assertEquals(8, maze.getMazeDistance(1, 1, 3, 1));
+        assertEquals(2, copy.getMazeDistance(1, 1, 3, 1));
+        assertMazeDistances(maze);
+    }
+
+    @Test
+    public void getMazeDistanceSharedTest() {
+        // the table is built once for every board with the same walls, even
+        // copies and snapshots taken before it was built
+        PacmanBoard maze = mazeOf(
+                "XXXXXX",
+                "X0000X",
+                "X0XX0X",
+                "X0000X",
+                "XXXXXX");
+        PacmanBoard copy = new PacmanBoard(maze);
+        PacmanBoard snapshot = maze.snapshot();
+        copy.setEntry(new Position(2, 1), BoardItem.WALL);
+        assertTrue(snapshot.prepareMazeDistances());
+        long footprint = snapshot.getMazeDistanceFootprint();
+        assertTrue(footprint > 0);
+        assertEquals(footprint, maze.getMazeDistanceFootprint());
+        assertEquals(footprint, maze.snapshot().getMazeDistanceFootprint());
+        // the copy has its own walls and is left to build its own
+        assertEquals(0, copy.getMazeDistanceFootprint());
+        assertEquals(8, copy.getMazeDistance(1, 1, 3, 1));
+        assertEquals(2, maze.getMazeDistance(1, 1, 3, 1));
+    }
+
+    @Test
+    public void getMazeDistanceRandomTest() {
+        // open boards with random walls, with and without the table
+        Random random = new Random(2008);
+        for (int round = 0; round < 20; round++) {
+            PacmanBoard maze = new PacmanBoard(9, 8);
+            for (int y = 1; y < 7; y++) {
+                for (int x = 1; x < 8; x++) {
+                    if (random.nextInt(3) == 0) {
+                        maze.setEntry(new Position(x, y), BoardItem.WALL);
+                    }
+                }
+            }
+            assertMazeDistances(maze);
+            assertTrue(maze.prepareMazeDistances());
+            assertMazeDistances(maze);
+        }
+    }
+
     /**
      * reset tests
      */
@@ -622,6 +904,90 @@ public class PacmanBoardTest {
         assertEquals(BoardItem.NONE, board.getEntry(positionMiddleBoard));
     }
 
+    @Test
+    public void spawnsDifferentTypesTest() {
+        // placing one type of spawn leaves the other type alone
+        board.setEntry(positionMiddleBoard, BoardItem.GHOST_SPAWN);
+        board.setEntry(positionTwoThree, BoardItem.PACMAN_SPAWN);
+        assertEquals(positionMiddleBoard, board.getGhostSpawn());
+        assertEquals(positionTwoThree, board.getPacmanSpawn());
+        assertEquals(BoardItem.GHOST_SPAWN, board.getEntry(positionMiddleBoard));
+    }
+
+    @Test
+    public void setEntryPacmanSpawnKeepsGhostSpawnTest() {
+        // moving the pacman spawn used to clear the ghost spawn too, it now
+        // only replaces the old pacman spawn
+        board.setEntry(positionMiddleBoard, BoardItem.GHOST_SPAWN);
+        board.setEntry(positionOneOne, BoardItem.PACMAN_SPAWN);
+        board.setEntry(positionTwoThree, BoardItem.PACMAN_SPAWN);
+        assertEquals(BoardItem.GHOST_SPAWN, board.getEntry(positionMiddleBoard));
+        assertEquals(positionMiddleBoard, board.getGhostSpawn());
+        assertEquals(BoardItem.NONE, board.getEntry(positionOneOne));
+        assertEquals(positionTwoThree, board.getPacmanSpawn());
+    }
+
+    @Test
+    public void spawnsOverwrittenTest() {
+        // replacing a spawn tile removes the spawn
+        board.setEntry(positionMiddleBoard, BoardItem.GHOST_SPAWN);
+        board.setEntry(positionTwoThree, BoardItem.PACMAN_SPAWN);
+        board.setEntry(positionMiddleBoard, BoardItem.WALL);
+        board.setEntry(positionTwoThree, BoardItem.GHOST_SPAWN);
+        assertEquals(null, board.getPacmanSpawn());
+        assertEquals(positionTwoThree, board.getGhostSpawn());
+        // copies keep the spawns
+        PacmanBoard copy = new PacmanBoard(board);
+        assertEquals(positionTwoThree, copy.getGhostSpawn());
+        assertEquals(null, copy.getPacmanSpawn());
+    }
+
+    /**
+     * Find the position of an item by checking every tile.
+     * @return the positions holding the item
+     */
+    private List<Position> findItem(PacmanBoard board, BoardItem item) {
+        List<Position> found = new ArrayList<>();
+        for (int x = 0; x < board.getWidth(); x++) {
+            for (int y = 0; y < board.getHeight(); y++) {
+                if (board.getEntry(new Position(x, y)) == item) {
+                    found.add(new Position(x, y));
+                }
+            }
+        }
+        return found;
+    }
+
+    @Test
+    public void spawnsRandomEditsTest() {
+        // spawn lookups always agree with a full scan of the board
+        Random random = new Random(2002);
+        BoardItem[] items = BoardItem.values();
+        for (StorageType type : StorageType.values()) {
+            PacmanBoard randomBoard = new PacmanBoard(9, 7, type);
+            for (int i = 0; i < 5000; i++) {
+                Position position = new Position(random.nextInt(9),
+                        random.nextInt(7));
+                randomBoard.setEntry(position, items[random.nextInt(items.length)]);
+                if (i % 7 == 0) {
+                    randomBoard.eatDot(position);
+                }
+                if (i % 500 == 0) {
+                    randomBoard.reset();
+                    randomBoard = new PacmanBoard(randomBoard);
+                }
+
+                List<Position> ghosts = findItem(randomBoard, BoardItem.GHOST_SPAWN);
+                List<Position> pacmans = findItem(randomBoard, BoardItem.PACMAN_SPAWN);
+                assertEquals(true, ghosts.size() <= 1 && pacmans.size() <= 1);
+                assertEquals(ghosts.isEmpty() ? null : ghosts.get(0),
+                        randomBoard.getGhostSpawn());
+                assertEquals(pacmans.isEmpty() ? null : pacmans.get(0),
+                        randomBoard.getPacmanSpawn());
+            }
+        }
+    }
+
     /**
      * isEmpty Tests
      */
@@ -678,6 +1044,148 @@ public class PacmanBoardTest {
         assertEquals(false, board.isEmpty());
     }
 
+    /**
+     * remaining dots Tests
+     */
+    @Test
+    public void remainingDotsDefaultTest() {
+        // new board has nothing to pick up
+        assertEquals(0, board.getRemainingDots());
+        assertEquals(0, board.getRemainingBigDots());
+        // reset fills the 6 middle tiles with dots
+        board.reset();
+        assertEquals(6, board.getRemainingDots());
+        assertEquals(0, board.getRemainingBigDots());
+    }
+
+    @Test
+    public void remainingDotsChangesTest() {
+        board.setEntry(positionOneOne, BoardItem.DOT);
+        board.setEntry(positionMiddleBoard, BoardItem.BIG_DOT);
+        assertEquals(1, board.getRemainingDots());
+        assertEquals(1, board.getRemainingBigDots());
+        // overwrite a dot and eat the big dot
+        board.setEntry(positionOneOne, BoardItem.WALL);
+        board.eatDot(positionMiddleBoard);
+        assertEquals(0, board.getRemainingDots());
+        assertEquals(0, board.getRemainingBigDots());
+        assertEquals(true, board.isEmpty());
+        // big dot comes back and the rest fill with dots
+        board.reset();
+        assertEquals(4, board.getRemainingDots());
+        assertEquals(1, board.getRemainingBigDots());
+        // copies keep the counts
+        PacmanBoard copy = new PacmanBoard(board);
+        copy.eatDot(positionTwoThree);
+        assertEquals(3, copy.getRemainingDots());
+        assertEquals(4, board.getRemainingDots());
+    }
+
+    @Test
+    public void remainingDotsRandomEditsTest() {
+        // counts always agree with a full scan of the board
+        Random random = new Random(2003);
+        BoardItem[] items = BoardItem.values();
+        PacmanBoard randomBoard = new PacmanBoard(8, 6, StorageType.PACKED);
+        for (int i = 0; i < 3000; i++) {
+            Position position = new Position(random.nextInt(8), random.nextInt(6));
+            switch (random.nextInt(20)) {
+                case 0:
+                    randomBoard.reset();
+                    break;
+                case 1:
+                case 2:
+                case 3:
+                    randomBoard.eatDot(position);
+                    break;
+                default:
+                    randomBoard.setEntry(position, items[random.nextInt(items.length)]);
+            }
+            int dots = findItem(randomBoard, BoardItem.DOT).size();
+            int bigDots = findItem(randomBoard, BoardItem.BIG_DOT).size();
+            assertEquals(dots, randomBoard.getRemainingDots());
+            assertEquals(bigDots, randomBoard.getRemainingBigDots());
+            assertEquals(dots + bigDots == 0, randomBoard.isEmpty());
+        }
+    }
+
+    /**
+     * change journal Tests
+     */
+    @Test
+    public void changesSinceTest() {
+        long cursor = board.getChangeCursor();
+        assertEquals(0, board.getChangesSince(cursor).length);
+        board.setEntry(positionOneOne, BoardItem.DOT);
+        board.setEntry(positionTwoThree, BoardItem.BIG_DOT);
+        board.eatDot(positionOneOne);
+        // packed as y * width + x, oldest first
+        assertArrayEquals(new int[]{5, 14, 5}, board.getChangesSince(cursor));
+        long second = board.getChangeCursor();
+        // writing the same item again is not a change
+        board.setEntry(positionTwoThree, BoardItem.BIG_DOT);
+        board.eatDot(positionOneOne);
+        assertEquals(0, board.getChangesSince(second).length);
+        assertEquals(3, board.getChangesSince(cursor).length);
+    }
+
+    @Test
+    public void changesResetTest() {
+        // reset reports every tile it fills
+        long cursor = board.getChangeCursor();
+        board.reset();
+        assertArrayEquals(new int[]{5, 6, 9, 10, 13, 14},
+                board.getChangesSince(cursor));
+    }
+
+    @Test
+    public void changesSpawnTest() {
+        // moving a spawn changes both tiles
+        board.setEntry(positionOneOne, BoardItem.PACMAN_SPAWN);
+        long cursor = board.getChangeCursor();
+        board.setEntry(positionTwoThree, BoardItem.PACMAN_SPAWN);
+        assertArrayEquals(new int[]{5, 14}, board.getChangesSince(cursor));
+    }
+
+    @Test
+    public void changesClearTest() {
+        long cursor = board.getChangeCursor();
+        board.setEntry(positionOneOne, BoardItem.DOT);
+        board.clearChanges();
+        // old cursors must re-read the board, new ones carry on
+        assertEquals(null, board.getChangesSince(cursor));
+        long after = board.getChangeCursor();
+        board.setEntry(positionMiddleBoard, BoardItem.DOT);
+        assertArrayEquals(new int[]{9}, board.getChangesSince(after));
+        // copies start with no changes
+        PacmanBoard copy = new PacmanBoard(board);
+        assertEquals(0, copy.getChangeCursor());
+    }
+
+    @Test
+    public void changesUnwatchedTest() {
+        // nothing is recorded before the first cursor is taken
+        board.setEntry(positionOneOne, BoardItem.DOT);
+        board.eatDot(positionOneOne);
+        assertEquals(0, board.getChangesSince(0).length);
+        long cursor = board.getChangeCursor();
+        assertEquals(0, cursor);
+        board.setEntry(positionTwoThree, BoardItem.DOT);
+        assertArrayEquals(new int[]{14}, board.getChangesSince(cursor));
+    }
+
+    @Test
+    public void changesOverflowTest() {
+        // too many changes drops the oldest
+        PacmanBoard big = new PacmanBoard(300, 300, StorageType.PACKED);
+        long cursor = big.getChangeCursor();
+        big.reset();
+        assertEquals(null, big.getChangesSince(cursor));
+        long after = big.getChangeCursor();
+        big.eatDot(new Position(2, 1));
+        assertArrayEquals(new int[]{302}, big.getChangesSince(after));
+    }
+
     /**
      * ASSIGNMENT TWO
      */
@@ -687,6 +1195,44 @@ public class PacmanBoardTest {
         assertEquals(boardTestOneExpectedString, boardTestOne.toString());
     }
 
+    @Test
+    public void writeToTest() throws IOException {
+        // the same text as toString, to a writer or any other appendable
+        board.reset();
+        board.setEntry(positionTwoThree, BoardItem.BIG_DOT);
+        StringWriter writer = new StringWriter();
+        board.writeTo(writer);
+        assertEquals(board.toString(), writer.toString());
+        StringBuilder builder = new StringBuilder();
+        boardTestOne.writeTo(builder);
+        assertEquals(boardTestOneExpectedString, builder.toString());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void writeToNullTest() throws IOException {
+        board.writeTo(null);
+    }
+
+    @Test(expected = IOException.class)
+    public void writeToFailTest() throws IOException {
+        // errors from the writer are passed on
+        board.writeTo(new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length)
+                    throws IOException {
+                throw new IOException();
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
     @Test
     public void equalsTest(){
         // compare two new boards
@@ -707,6 +1253,530 @@ public class PacmanBoardTest {
         assertEquals(false, boardOneHash == boardThreeHash);
     }
 
+    @Test
+    public void zobristHashTest() {
+        // same tiles give the same hash, however the boards got there
+        PacmanBoard other = new PacmanBoard(4, 5, StorageType.PACKED);
+        assertEquals(board.getZobristHash(), other.getZobristHash());
+        board.setEntry(positionTwoThree, BoardItem.DOT);
+        assertEquals(false, board.getZobristHash() == other.getZobristHash());
+        other.setEntry(positionTwoThree, BoardItem.BIG_DOT);
+        assertEquals(false, board.getZobristHash() == other.getZobristHash());
+        other.setEntry(positionTwoThree, BoardItem.DOT);
+        assertEquals(board.getZobristHash(), other.getZobristHash());
+        board.eatDot(positionTwoThree);
+        other.setEntry(positionTwoThree, BoardItem.NONE);
+        assertEquals(board.getZobristHash(), other.getZobristHash());
+        assertEquals(board.hashCode(), other.hashCode());
+    }
+
+    @Test
+    public void zobristHashRandomEditsTest() {
+        // the kept up to date hash always matches one worked out from scratch
+        Random random = new Random(2011);
+        BoardItem[] items = BoardItem.values();
+        for (StorageType type : StorageType.values()) {
+            PacmanBoard randomBoard = new PacmanBoard(9, 6, type);
+            randomBoard.getZobristHash();
+            for (int i = 0; i < 2000; i++) {
+                Position position = new Position(random.nextInt(9),
+                        random.nextInt(6));
+                randomBoard.setEntry(position, items[random.nextInt(items.length)]);
+                if (i % 5 == 0) {
+                    randomBoard.eatDot(position);
+                }
+                if (i % 300 == 0) {
+                    randomBoard.reset();
+                }
+                if (i % 50 == 0) {
+                    randomBoard = random.nextBoolean()
+                            ? new PacmanBoard(randomBoard)
+                            : randomBoard.snapshot();
+                }
+
+                // rebuilt tile by tile, so its hash is worked out afresh
+                PacmanBoard rebuilt = new PacmanBoard(9, 6);
+                for (int y = 0; y < 6; y++) {
+                    for (int x = 0; x < 9; x++) {
+                        Position tile = new Position(x, y);
+                        rebuilt.setEntry(tile, randomBoard.getEntry(tile));
+                    }
+                }
+                assertEquals(rebuilt.getZobristHash(), randomBoard.getZobristHash());
+                assertEquals(rebuilt, randomBoard);
+            }
+        }
+    }
+
+    @Test
+    public void zobristHashSizeTest() {
+        // the same tiles on a different size board are not equal
+        PacmanBoard wide = new PacmanBoard(6, 3);
+        PacmanBoard tall = new PacmanBoard(3, 6);
+        assertEquals(false, wide.equals(tall));
+        assertEquals(false, wide.hashCode() == tall.hashCode());
+    }
+
+    /**
+     * Storage tests
+     */
+    @Test
+    public void packedDefaultTest() {
+        // packed board starts the same as an array board
+        PacmanBoard packed = new PacmanBoard(4, 5, StorageType.PACKED);
+        assertEquals(StorageType.PACKED, packed.getStorageType());
+        assertEquals(StorageType.ARRAY, board.getStorageType());
+        assertEquals(true, compareBoards(packed, boardDefaultExpected));
+        assertEquals(boardTestOneExpectedString, packed.toString());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void packedNullTypeTest() {
+        new PacmanBoard(4, 5, null);
+    }
+
+    @Test
+    public void packedItemsTest() {
+        // every item round trips and eatDot/reset behave the same
+        PacmanBoard packed = new PacmanBoard(4, 5, StorageType.PACKED);
+        packed.setEntry(positionOneOne, BoardItem.BIG_DOT);
+        packed.setEntry(positionTwoThree, BoardItem.PACMAN_SPAWN);
+        packed.setEntry(positionMiddleBoard, BoardItem.GHOST_SPAWN);
+        board.setEntry(positionOneOne, BoardItem.BIG_DOT);
+        board.setEntry(positionTwoThree, BoardItem.PACMAN_SPAWN);
+        board.setEntry(positionMiddleBoard, BoardItem.GHOST_SPAWN);
+        assertEquals(board.toString(), packed.toString());
+        assertEquals(positionMiddleBoard, packed.getGhostSpawn());
+        assertEquals(positionTwoThree, packed.getPacmanSpawn());
+
+        assertEquals(BoardItem.BIG_DOT, packed.eatDot(positionOneOne));
+        assertEquals(BoardItem.BIG_DOT_SPAWN, packed.getEntry(positionOneOne));
+        assertEquals(true, packed.isEmpty());
+        packed.reset();
+        assertEquals(BoardItem.BIG_DOT, packed.getEntry(positionOneOne));
+        assertEquals(BoardItem.DOT, packed.getEntry(new Position(2, 2)));
+        assertEquals(false, packed.isEmpty());
+    }
+
+    @Test
+    public void packedCopyTest() {
+        // copy keeps the storage type and is independent of the original
+        PacmanBoard packed = new PacmanBoard(4, 5, StorageType.PACKED);
+        PacmanBoard copy = new PacmanBoard(packed);
+        assertEquals(StorageType.PACKED, copy.getStorageType());
+        packed.reset();
+        assertEquals(true, compareBoards(copy, boardDefaultExpected));
+        assertEquals(true, compareBoards(packed, boardResetExpected));
+    }
+
+    @Test
+    public void packedEqualsArrayTest() {
+        // storage type does not matter for equality or hash
+        PacmanBoard packed = new PacmanBoard(4, 5, StorageType.PACKED);
+        assertEquals(true, packed.equals(board));
+        assertEquals(board.hashCode(), packed.hashCode());
+        packed.setEntry(positionTwoThree, BoardItem.DOT);
+        assertEquals(false, packed.equals(board));
+        board.setEntry(positionTwoThree, BoardItem.DOT);
+        assertEquals(true, board.equals(packed));
+        assertEquals(board.hashCode(), packed.hashCode());
+    }
+
+    @Test
+    public void hashCodeNonSquareTest() {
+        // wide and tall boards can be hashed and compared
+        PacmanBoard wide = new PacmanBoard(7, 3, StorageType.PACKED);
+        PacmanBoard tall = new PacmanBoard(3, 7);
+        assertEquals(wide.hashCode(), new PacmanBoard(wide).hashCode());
+        assertEquals(tall.hashCode(), new PacmanBoard(tall).hashCode());
+        assertEquals(false, wide.equals(tall));
+    }
+
+    @Test
+    public void footprintTest() {
+        // packed is about a quarter of array storage on a large board
+        PacmanBoard array = new PacmanBoard(2000, 2000);
+        PacmanBoard packed = new PacmanBoard(2000, 2000, StorageType.PACKED);
+        assertEquals(2000 * 2000 + 16, packed.getFootprint());
+        assertEquals(true, array.getFootprint() > 4 * 2000 * 2000);
+        assertEquals(true, packed.getFootprint() * 3 < array.getFootprint());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packedTooBigTest() {
+        // 2^32 + 65536 tiles would wrap round to a small array
+        new PacmanBoard(65536, 65537, StorageType.PACKED);
+    }
+
+    @Test
+    public void offHeapTest() {
+        // off heap board agrees with array storage and is copied on write
+        PacmanBoard offHeap = new PacmanBoard(4, 5, StorageType.OFF_HEAP);
+        assertEquals(StorageType.OFF_HEAP, offHeap.getStorageType());
+        assertEquals(true, compareBoards(offHeap, boardDefaultExpected));
+        assertEquals(20, offHeap.getFootprint());
+        PacmanBoard snapshot = offHeap.snapshot();
+        offHeap.setEntry(new Position(1, 1), BoardItem.WALL);
+        assertEquals(BoardItem.WALL, offHeap.getEntry(new Position(1, 1)));
+        assertEquals(BoardItem.NONE, snapshot.getEntry(new Position(1, 1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void offHeapTooBigTest() {
+        // 2^32 tiles would wrap round to an empty buffer
+        new PacmanBoard(65536, 65536, StorageType.OFF_HEAP);
+    }
+
+    @Test
+    public void closeTest() {
+        // a snapshot keeps its tiles once the board is closed
+        PacmanBoard offHeap = new PacmanBoard(4, 5, StorageType.OFF_HEAP);
+        PacmanBoard snapshot = offHeap.snapshot();
+        offHeap.close();
+        assertEquals(BoardItem.NONE, snapshot.getEntry(new Position(1, 1)));
+        // boards on the heap are left as they are
+        board.close();
+        assertEquals(BoardItem.NONE, board.getEntry(new Position(1, 1)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closeGetTest() {
+        PacmanBoard offHeap = new PacmanBoard(4, 5, StorageType.OFF_HEAP);
+        offHeap.close();
+        offHeap.getEntry(new Position(1, 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closeSetTest() {
+        PacmanBoard offHeap = new PacmanBoard(4, 5, StorageType.OFF_HEAP);
+        offHeap.close();
+        offHeap.setEntry(new Position(1, 1), BoardItem.WALL);
+    }
+
+    @Test
+    public void chunkedDefaultTest() {
+        // chunked board starts the same as an array board
+        PacmanBoard chunked = new PacmanBoard(4, 5, StorageType.CHUNKED);
+        assertEquals(StorageType.CHUNKED, chunked.getStorageType());
+        assertEquals(true, compareBoards(chunked, boardDefaultExpected));
+        assertEquals(true, chunked.equals(board));
+        assertEquals(board.hashCode(), chunked.hashCode());
+    }
+
+    @Test
+    public void chunkedRandomEditsTest() {
+        // agrees with packed storage across chunk edges, copies independent
+        Random random = new Random(2009);
+        BoardItem[] items = {BoardItem.NONE, BoardItem.WALL, BoardItem.DOT,
+                BoardItem.BIG_DOT};
+        PacmanBoard chunked = new PacmanBoard(150, 70, StorageType.CHUNKED);
+        PacmanBoard packed = new PacmanBoard(150, 70, StorageType.PACKED);
+        PacmanBoard copy = new PacmanBoard(chunked);
+        for (int i = 0; i < 20000; i++) {
+            Position position = new Position(random.nextInt(150),
+                    random.nextInt(70));
+            BoardItem item = items[random.nextInt(items.length)];
+            chunked.setEntry(position, item);
+            packed.setEntry(position, item);
+        }
+        assertEquals(packed, chunked);
+        assertEquals(packed.toString(), chunked.toString());
+        assertEquals(packed.getRemainingDots(), chunked.getRemainingDots());
+        assertEquals(new PacmanBoard(150, 70), copy);
+    }
+
+    @Test
+    public void chunkedFootprintTest() {
+        // only chunks that have been changed take memory of their own
+        PacmanBoard chunked = new PacmanBoard(4096, 4096, StorageType.CHUNKED,
+                BoardItem.WALL);
+        long untouched = chunked.getFootprint();
+        assertEquals(true, untouched < 70000);
+        chunked.setEntry(new Position(100, 100), BoardItem.DOT);
+        chunked.setEntry(new Position(101, 100), BoardItem.DOT);
+        assertEquals(untouched + 16 + 64 * 64, chunked.getFootprint());
+        // writing the prototype item again does not use any more
+        chunked.setEntry(new Position(1000, 1000), BoardItem.WALL);
+        assertEquals(untouched + 16 + 64 * 64, chunked.getFootprint());
+        PacmanBoard copy = new PacmanBoard(chunked);
+        assertEquals(chunked.getFootprint(), copy.getFootprint());
+        assertEquals(BoardItem.DOT, copy.getEntry(new Position(101, 100)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkedTooBigTest() {
+        // tile indices are ints, 2^32 + 65536 tiles would wrap round
+        new PacmanBoard(65536, 65537, StorageType.CHUNKED, BoardItem.WALL);
+    }
+
+    @Test
+    public void chunkedHugeTest() {
+        // nearly 2^31 tiles, a table of a byte per tile would be 2GB of heap,
+        // chunks left as walls take none and no neighbour table is built
+        PacmanBoard huge = new PacmanBoard(65535, 32768, StorageType.CHUNKED,
+                BoardItem.WALL);
+        huge.setEntry(new Position(40000, 30000), BoardItem.DOT);
+        huge.setEntry(new Position(40001, 30000), BoardItem.DOT);
+        assertEquals(Direction.RIGHT.mask(), huge.getNeighbours(40000, 30000));
+        assertEquals(Direction.LEFT.mask(), huge.getNeighbours(40001, 30000));
+        assertEquals(0, huge.getNeighbourFootprint());
+        assertEquals(2, huge.getRemainingDots());
+    }
+
+    @Test
+    public void neighbourFootprintTest() {
+        // only ARRAY and PACKED keep a table, the others work masks out
+        Random random = new Random(2066);
+        BoardItem[] items = {BoardItem.NONE, BoardItem.WALL, BoardItem.DOT};
+        PacmanBoard packed = new PacmanBoard(70, 40, StorageType.PACKED);
+        PacmanBoard chunked = new PacmanBoard(70, 40, StorageType.CHUNKED);
+        PacmanBoard offHeap = new PacmanBoard(70, 40, StorageType.OFF_HEAP);
+        packed.getNeighbours(0, 0);
+        for (int i = 0; i < 2000; i++) {
+            Position position = new Position(random.nextInt(70),
+                    random.nextInt(40));
+            BoardItem item = items[random.nextInt(items.length)];
+            packed.setEntry(position, item);
+            chunked.setEntry(position, item);
+            offHeap.setEntry(position, item);
+        }
+        for (int x = -1; x <= 70; x++) {
+            for (int y = -1; y <= 40; y++) {
+                assertEquals(packed.getNeighbours(x, y),
+                        chunked.getNeighbours(x, y));
+                assertEquals(packed.getNeighbours(x, y),
+                        offHeap.getNeighbours(x, y));
+            }
+        }
+        assertEquals(16 + 70 * 40, packed.getNeighbourFootprint());
+        assertEquals(0, chunked.getNeighbourFootprint());
+        assertEquals(0, offHeap.getNeighbourFootprint());
+        assertEquals(0, new PacmanBoard(70, 40).getNeighbourFootprint());
+        offHeap.close();
+    }
+
+    @Test
+    public void fillTest() {
+        // every storage can start filled with walls or dots inside the border
+        for (StorageType type : StorageType.values()) {
+            PacmanBoard dots = new PacmanBoard(5, 4, type, BoardItem.DOT);
+            assertEquals(6, dots.getRemainingDots());
+            assertEquals(false, dots.isEmpty());
+            assertEquals(BoardItem.WALL, dots.getEntry(new Position(4, 3)));
+            assertEquals(BoardItem.DOT, dots.getEntry(new Position(3, 2)));
+            assertEquals(BoardItem.DOT, dots.eatDot(new Position(3, 2)));
+            assertEquals(5, dots.getRemainingDots());
+
+            PacmanBoard walls = new PacmanBoard(5, 4, type, BoardItem.WALL);
+            assertEquals(true, walls.isEmpty());
+            assertEquals(false, walls.isPathable(2, 2));
+            assertEquals(0, walls.getNeighbours(2, 2));
+
+            PacmanBoard bigDots = new PacmanBoard(2, 2, type, BoardItem.BIG_DOT);
+            assertEquals(0, bigDots.getRemainingBigDots());
+        }
+    }
+
+    /**
+     * dot layer tests
+     */
+    @Test
+    public void dotLayerTest() {
+        // dots live apart from the layout but read back the same
+        board.setEntry(positionOneOne, BoardItem.BIG_DOT);
+        board.setEntry(positionTwoThree, BoardItem.DOT);
+        assertEquals(BoardItem.BIG_DOT, board.getEntry(positionOneOne));
+        assertEquals(BoardItem.DOT, board.getEntry(positionTwoThree));
+        assertEquals(BoardItem.BIG_DOT, board.eatDot(positionOneOne));
+        assertEquals(BoardItem.BIG_DOT_SPAWN, board.getEntry(positionOneOne));
+        board.setEntry(positionTwoThree, BoardItem.WALL);
+        board.reset();
+        assertEquals(BoardItem.BIG_DOT, board.getEntry(positionOneOne));
+        assertEquals(BoardItem.WALL, board.getEntry(positionTwoThree));
+        assertEquals(BoardItem.DOT, board.getEntry(positionMiddleBoard));
+        assertEquals(4, board.getRemainingDots());
+        assertEquals(1, board.getRemainingBigDots());
+    }
+
+    @Test
+    public void dotLayerCountTest() {
+        // a popcount of the layer always agrees with the live counts
+        Random random = new Random(2012);
+        BoardItem[] items = BoardItem.values();
+        PacmanBoard randomBoard = new PacmanBoard(150, 70, StorageType.CHUNKED);
+        for (int i = 0; i < 5000; i++) {
+            Position position = new Position(random.nextInt(150),
+                    random.nextInt(70));
+            randomBoard.setEntry(position, items[random.nextInt(items.length)]);
+            if (i % 3 == 0) {
+                randomBoard.eatDot(position);
+            }
+            if (i % 1000 == 0) {
+                randomBoard.reset();
+            }
+        }
+        randomBoard.reset();
+        assertEquals(findItem(randomBoard, BoardItem.DOT).size(),
+                randomBoard.getRemainingDots());
+        assertEquals(findItem(randomBoard, BoardItem.BIG_DOT).size(),
+                randomBoard.getRemainingBigDots());
+        assertEquals(0, findItem(randomBoard, BoardItem.NONE).size());
+        assertEquals(0, findItem(randomBoard, BoardItem.BIG_DOT_SPAWN).size());
+    }
+
+    @Test
+    public void dotLayerLargeResetTest() {
+        // a million tile level is put back in one pass over the layer
+        PacmanBoard large = new PacmanBoard(1000, 1000, StorageType.CHUNKED,
+                BoardItem.DOT);
+        assertEquals(998 * 998, large.getRemainingDots());
+        for (int x = 1; x < 999; x++) {
+            large.eatDot(new Position(x, 500));
+        }
+        assertEquals(998 * 997, large.getRemainingDots());
+        long cursor = large.getChangeCursor();
+        large.reset();
+        assertEquals(998 * 998, large.getRemainingDots());
+        assertEquals(998, large.getChangesSince(cursor).length);
+        assertEquals(500 * 1000 + 1, large.getChangesSince(cursor)[0]);
+        assertEquals(BoardItem.DOT, large.getEntry(new Position(998, 500)));
+        assertEquals(BoardItem.WALL, large.getEntry(new Position(999, 500)));
+    }
+
+    @Test
+    public void dotFootprintTest() {
+        // untouched pages take no memory of their own
+        PacmanBoard walls = new PacmanBoard(4096, 4096, StorageType.CHUNKED,
+                BoardItem.WALL);
+        PacmanBoard dots = new PacmanBoard(4096, 4096, StorageType.CHUNKED,
+                BoardItem.DOT);
+        // four page tables, then only the dot and respawn pages along the
+        // border have been written to
+        long tables = 4 * (16 + 4 * 64 * 64);
+        long border = 4 * 63 * (16 + 64 * 8);
+        assertEquals(tables, walls.getDotFootprint());
+        assertEquals(tables + 2 * border, dots.getDotFootprint());
+        long before = dots.getDotFootprint();
+        dots.eatDot(new Position(2000, 2000));
+        assertEquals(before + 16 + 64 * 8, dots.getDotFootprint());
+    }
+
+    /**
+     * snapshot tests
+     */
+    @Test
+    public void snapshotTest() {
+        // equal to begin with, then changes are not seen by the other side
+        board.setEntry(positionTwoThree, BoardItem.GHOST_SPAWN);
+        PacmanBoard snapshot = board.snapshot();
+        assertEquals(board, snapshot);
+        assertEquals(positionTwoThree, snapshot.getGhostSpawn());
+        assertEquals(0, snapshot.getChangeCursor());
+
+        snapshot.reset();
+        assertEquals(BoardItem.NONE, board.getEntry(positionOneOne));
+        assertEquals(BoardItem.DOT, snapshot.getEntry(positionOneOne));
+        board.setEntry(positionOneOne, BoardItem.WALL);
+        assertEquals(BoardItem.DOT, snapshot.getEntry(positionOneOne));
+        assertEquals(false, board.isPathable(1, 1));
+        assertEquals(true, snapshot.isPathable(1, 1));
+    }
+
+    @Test
+    public void snapshotNeighboursTest() {
+        // the neighbour table is shared until a wall changes
+        assertEquals(Direction.DOWN.mask() | Direction.RIGHT.mask(),
+                board.getNeighbours(1, 1));
+        PacmanBoard snapshot = board.snapshot();
+        snapshot.setEntry(new Position(2, 1), BoardItem.WALL);
+        assertEquals(Direction.DOWN.mask(), snapshot.getNeighbours(1, 1));
+        assertEquals(Direction.DOWN.mask() | Direction.RIGHT.mask(),
+                board.getNeighbours(1, 1));
+        board.setEntry(positionMiddleBoard, BoardItem.WALL);
+        assertEquals(Direction.RIGHT.mask(), board.getNeighbours(1, 1));
+        assertEquals(Direction.DOWN.mask(), snapshot.getNeighbours(1, 1));
+    }
+
+    @Test
+    public void snapshotRandomEditsTest() {
+        // every snapshot keeps the board as it was when it was taken
+        Random random = new Random(2010);
+        BoardItem[] items = {BoardItem.NONE, BoardItem.WALL, BoardItem.DOT,
+                BoardItem.BIG_DOT};
+        for (StorageType type : StorageType.values()) {
+            PacmanBoard randomBoard = new PacmanBoard(140, 70, type);
+            List<PacmanBoard> snapshots = new ArrayList<>();
+            List<PacmanBoard> copies = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                Position position = new Position(random.nextInt(140),
+                        random.nextInt(70));
+                BoardItem item = items[random.nextInt(items.length)];
+                if (i % 3 == 0 && !snapshots.isEmpty()) {
+                    // write to the snapshots as well
+                    int index = random.nextInt(snapshots.size());
+                    snapshots.get(index).setEntry(position, item);
+                    copies.get(index).setEntry(position, item);
+                } else {
+                    randomBoard.setEntry(position, item);
+                }
+                if (i % 100 == 0) {
+                    snapshots.add(randomBoard.snapshot());
+                    copies.add(new PacmanBoard(randomBoard));
+                }
+            }
+            for (int i = 0; i < snapshots.size(); i++) {
+                assertEquals(type + " " + i, copies.get(i), snapshots.get(i));
+                assertEquals(copies.get(i).getRemainingDots(),
+                        snapshots.get(i).getRemainingDots());
+            }
+        }
+    }
+
+    @Test
+    public void snapshotMemoryTest() {
+        // 10,000 snapshots one eaten dot apart share almost all their tiles,
+        // deep copies of a 500x500 board would need about 10GB
+        PacmanBoard big = new PacmanBoard(500, 500);
+        big.reset();
+        List<PacmanBoard> snapshots = new ArrayList<>(10000);
+        long before = usedMemory();
+        for (int i = 0; i < 10000; i++) {
+            big.eatDot(new Position(1 + i % 498, 1 + i / 498));
+            snapshots.add(big.snapshot());
+        }
+        long used = usedMemory() - before;
+        assertEquals("used " + used, true, used < 80L * 1024 * 1024);
+
+        // each snapshot has exactly one more dot eaten than the one before
+        assertEquals(500 * 500 - 4 * 499 - 10000, big.getRemainingDots());
+        for (int i = 1; i < 10000; i++) {
+            Position eaten = new Position(1 + i % 498, 1 + i / 498);
+            assertEquals(BoardItem.DOT, snapshots.get(i - 1).getEntry(eaten));
+            assertEquals(BoardItem.NONE, snapshots.get(i).getEntry(eaten));
+        }
+    }
+
+    /*
+     * Gets the heap in use after asking for a garbage collection.
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fillSpawnTest() {
+        new PacmanBoard(5, 4, StorageType.CHUNKED, BoardItem.GHOST_SPAWN);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void fillNullTest() {
+        new PacmanBoard(5, 4, StorageType.CHUNKED, null);
+    }
+
 
 
 
@@ -89,6 +89,21 @@ public class BoardViewModelTest {
         assertEquals(16, boardVM.getLevel());
     }
 
+    @Test
+    public void getDotsLeftTest() {
+        // Only the big dot to start with
+        assertEquals(1, boardVM.getDotsLeft());
+
+        // Add a dot
+        board.setEntry(new Position(2,2), BoardItem.DOT);
+        assertEquals(2, boardVM.getDotsLeft());
+
+        // Eat the big dot (set hunter position one away from it)
+        hunter.setPosition(hunterEat);
+        model.tick();
+        assertEquals(1, boardVM.getDotsLeft());
+    }
+
     @Test
     public void getPacmanColourTest() {
         // Default colour
@@ -7,6 +7,7 @@ import pacman.board.PacmanBoard;
 import pacman.game.GameReader;
 import pacman.game.PacmanGame;
 import pacman.ghost.Ghost;
+import pacman.ghost.GhostType;
 import pacman.util.Position;
 import pacman.util.UnpackableException;
 
@@ -178,6 +179,32 @@ public class GameReaderTest {
         assertEquals(true, compareBoards(mapOneGame.getBoard(), mapOneBoard));
     }
 
+    @Test
+    public void mapOneMazeDistanceTest() throws IOException, UnpackableException {
+        mapOneSetup();
+        // the junction table is only built once maze chasing is turned on
+        PacmanBoard board = mapOneGame.getBoard();
+        assertEquals(0, board.getMazeDistanceFootprint());
+        mapOneGame.setMazeChase(false);
+        assertEquals(0, board.getMazeDistanceFootprint());
+        mapOneGame.setMazeChase(true);
+        assertTrue(board.getMazeDistanceFootprint() > 0);
+        assertEquals(0, board.getMazeDistance(1, 1, 1, 1));
+        assertEquals(-1, board.getMazeDistance(1, 1, 0, 0));
+    }
+
+    @Test
+    public void mapOneJournalTest() throws IOException, UnpackableException {
+        mapOneSetup();
+        // the tiles placed while reading are not held as changes
+        PacmanBoard board = mapOneGame.getBoard();
+        assertEquals(0, board.getChangesSince(0).length);
+        long cursor = board.getChangeCursor();
+        assertEquals(0, board.getChangesSince(cursor).length);
+        board.eatDot(1, 1);
+        assertArrayEquals(new int[]{25 + 1}, board.getChangesSince(cursor));
+    }
+
     @Test
     public void mapOneGameTest() throws IOException, UnpackableException {
         mapOneSetup();
@@ -3195,4 +3222,122 @@ public class GameReaderTest {
         gr.read(fr);
         fr.close();
     }
-}
\ No newline at end of file
+
+    /*
+     * A valid save with the given ghost assignments, one per line.
+     */
+    private StringReader ghostsFile(String... ghosts) {
+        String file = "[Board]" + System.lineSeparator()
+                + "5,4" + System.lineSeparator()
+                + "XXXXX" + System.lineSeparator()
+                + "XP0$X" + System.lineSeparator()
+                + "X000X" + System.lineSeparator()
+                + "XXXXX" + System.lineSeparator()
+                + System.lineSeparator()
+                + "[Game]" + System.lineSeparator()
+                + "title = roster" + System.lineSeparator()
+                + "author = author" + System.lineSeparator()
+                + "lives = 3" + System.lineSeparator()
+                + "level = 1" + System.lineSeparator()
+                + "score = 40" + System.lineSeparator()
+                + "hunter = 1,1,RIGHT,0,HUNGRY" + System.lineSeparator();
+        for (String ghost : ghosts) {
+            file += ghost + System.lineSeparator();
+        }
+        return new StringReader(file + System.lineSeparator()
+                + "[Scores]" + System.lineSeparator()
+                + "A : 1");
+    }
+
+    @Test
+    public void rosterReadTest() throws IOException, UnpackableException {
+        // any number of ghosts of any type, in the order given
+        PacmanGame game = gr.read(ghostsFile(
+                "ghosts = 3",
+                "ghost = 1,2,UP,CHASE:4,PINKY",
+                "ghost = 3,1,LEFT,FRIGHTENED:9,PINKY",
+                "ghost = 2,2,DOWN,SCATTER:2,CLYDE"));
+        List<Ghost> ghosts = game.getGhosts();
+        assertEquals(3, ghosts.size());
+        assertEquals(GhostType.PINKY, ghosts.get(0).getType());
+        assertEquals(GhostType.PINKY, ghosts.get(1).getType());
+        assertEquals(GhostType.CLYDE, ghosts.get(2).getType());
+        assertEquals("[1,2,UP,CHASE:4, 3,1,LEFT,FRIGHTENED:9, "
+                + "2,2,DOWN,SCATTER:2]", ghosts.toString());
+        assertEquals(3, game.getLives());
+        assertEquals(40, game.getScores().getScore());
+    }
+
+    @Test
+    public void emptyRosterReadTest() throws IOException, UnpackableException {
+        assertEquals(0, gr.read(ghostsFile("ghosts = 0")).getGhosts().size());
+    }
+
+    @Test
+    public void longCommentEndsGameTest()
+            throws IOException, UnpackableException {
+        // the comment ending the [Game] block can be any length
+        StringBuilder comment = new StringBuilder(";");
+        for (int i = 0; i < 20000; i++) {
+            comment.append('x');
+        }
+        PacmanGame game = gr.read(ghostsFile("ghosts = 1",
+                "ghost = 1,2,UP,CHASE:4,PINKY", comment.toString()));
+        assertEquals("[1,2,UP,CHASE:4]", game.getGhosts().toString());
+        assertEquals(40, game.getScores().getScore());
+    }
+
+    @Test(expected = UnpackableException.class)
+    public void rosterTooFewTest() throws IOException, UnpackableException {
+        gr.read(ghostsFile("ghosts = 2", "ghost = 1,2,UP,CHASE:4,PINKY"));
+    }
+
+    @Test(expected = UnpackableException.class)
+    public void rosterTooManyTest() throws IOException, UnpackableException {
+        gr.read(ghostsFile("ghosts = 1", "ghost = 1,2,UP,CHASE:4,PINKY",
+                "ghost = 1,2,UP,CHASE:4,INKY"));
+    }
+
+    @Test(expected = UnpackableException.class)
+    public void rosterNoCountTest() throws IOException, UnpackableException {
+        gr.read(ghostsFile("ghost = 1,2,UP,CHASE:4,PINKY"));
+    }
+
+    @Test(expected = UnpackableException.class)
+    public void rosterTypeTest() throws IOException, UnpackableException {
+        gr.read(ghostsFile("ghosts = 1", "ghost = 1,2,UP,CHASE:4,SUE"));
+    }
+
+    @Test(expected = UnpackableException.class)
+    public void rosterMixedTest() throws IOException, UnpackableException {
+        // the classic assignments and a roster cannot both be given
+        gr.read(ghostsFile("ghosts = 1", "ghost = 1,2,UP,CHASE:4,PINKY",
+                "blinky = 1,2,UP,CHASE:4", "inky = 1,2,UP,CHASE:4",
+                "pinky = 1,2,UP,CHASE:4", "clyde = 1,2,UP,CHASE:4"));
+    }
+
+    @Test(expected = UnpackableException.class)
+    public void duplicateGhostsTest() throws IOException, UnpackableException {
+        gr.read(ghostsFile("ghosts = 1", "ghosts = 1",
+                "ghost = 1,2,UP,CHASE:4,PINKY"));
+    }
+
+    @Test(expected = UnpackableException.class)
+    public void duplicateClassicTest() throws IOException, UnpackableException {
+        gr.read(ghostsFile("blinky = 1,2,UP,CHASE:4", "inky = 1,2,UP,CHASE:4",
+                "pinky = 1,2,UP,CHASE:4", "clyde = 1,2,UP,CHASE:4",
+                "clyde = 1,2,UP,CHASE:4"));
+    }
+
+    @Test
+    public void classicReadTest() throws IOException, UnpackableException {
+        // the four classic assignments in any order still give one of each
+        PacmanGame game = gr.read(ghostsFile("clyde = 3,1,UP,CHASE:4",
+                "pinky = 1,2,UP,CHASE:4", "blinky = 2,2,LEFT,SCATTER:1",
+                "inky = 1,2,UP,CHASE:4"));
+        assertEquals(GhostType.BLINKY, game.getGhosts().get(0).getType());
+        assertEquals("2,2,LEFT,SCATTER:1", game.getGhosts().get(0).toString());
+        assertEquals(GhostType.CLYDE, game.getGhosts().get(3).getType());
+        assertEquals("3,1,UP,CHASE:4", game.getGhosts().get(3).toString());
+    }
+}
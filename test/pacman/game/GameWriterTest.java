@@ -4,8 +4,12 @@ import org.junit.Before;
 import org.junit.Test;
 import pacman.board.BoardItem;
 import pacman.board.PacmanBoard;
+import pacman.ghost.Blinky;
+import pacman.ghost.Clyde;
 import pacman.ghost.Ghost;
+import pacman.ghost.Inky;
 import pacman.ghost.Phase;
+import pacman.ghost.Pinky;
 import pacman.hunter.Hunter;
 import pacman.hunter.Phil;
 import pacman.hunter.Speedy;
@@ -18,6 +22,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
@@ -412,4 +418,71 @@ public class GameWriterTest {
             fail();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void writeLargeBoardTest() throws IOException {
+        // the board goes to the writer a row at a time, never as one string
+        PacmanBoard large = new PacmanBoard(3000, 400);
+        large.reset();
+        large.setEntry(new Position(1, 1), BoardItem.PACMAN_SPAWN);
+        large.setEntry(new Position(2, 1), BoardItem.GHOST_SPAWN);
+        PacmanGame game = new PacmanGame("large", "author", new Phil(), large);
+        int[] longest = new int[1];
+        StringWriter out = new StringWriter() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                longest[0] = Math.max(longest[0], length);
+                super.write(buffer, offset, length);
+            }
+
+            @Override
+            public void write(String text) {
+                longest[0] = Math.max(longest[0], text.length());
+                super.write(text);
+            }
+        };
+        GameWriter.write(out, game);
+        assertEquals(3000, longest[0]);
+        String expected = "[Board]" + endLine + "3000,400" + endLine
+                + large.toString() + endLine + endLine + "[Game]" + endLine;
+        assertEquals(true, out.toString().startsWith(expected));
+    }
+
+    @Test
+    public void rosterRoundTripTest() throws IOException, UnpackableException {
+        // a roster other than the classic four is written as a list of ghosts
+        PacmanBoard rosterBoard = new PacmanBoard(5, 4);
+        rosterBoard.setEntry(new Position(1, 1), BoardItem.PACMAN_SPAWN);
+        rosterBoard.setEntry(new Position(3, 2), BoardItem.GHOST_SPAWN);
+        List<Ghost> roster = Arrays.asList(new Clyde(), new Clyde(),
+                new Blinky(), new Inky(), new Pinky());
+        PacmanGame game = new PacmanGame("roster", "author", new Speedy(),
+                rosterBoard, roster);
+        roster.get(1).setPosition(new Position(2, 1));
+        roster.get(1).setDirection(Direction.LEFT);
+        roster.get(1).setPhase(Phase.FRIGHTENED, 12);
+        StringWriter out = new StringWriter();
+        GameWriter.write(out, game);
+        String written = out.toString();
+        assertEquals(true, written.contains("score = 0" + endLine
+                + "hunter = 0,0,UP,0,SPEEDY" + endLine
+                + "ghosts = 5" + endLine
+                + "ghost = 3,2,UP,SCATTER:10,CLYDE" + endLine
+                + "ghost = 2,1,LEFT,FRIGHTENED:12,CLYDE" + endLine
+                + "ghost = 3,2,UP,SCATTER:10,BLINKY" + endLine
+                + "ghost = 3,2,UP,SCATTER:10,INKY" + endLine
+                + "ghost = 3,2,UP,SCATTER:10,PINKY" + endLine + endLine));
+        assertEquals(false, written.contains("blinky = "));
+
+        // and read back the same
+        PacmanGame read = GameReader.read(new StringReader(written));
+        assertEquals(game.getGhosts().toString(), read.getGhosts().toString());
+        for (int i = 0; i < roster.size(); i++) {
+            assertEquals(roster.get(i).getType(),
+                    read.getGhosts().get(i).getType());
+        }
+        StringWriter again = new StringWriter();
+        GameWriter.write(again, read);
+        assertEquals(written, again.toString());
+    }
+}
@@ -0,0 +1,120 @@
+package pacman.game;
+
+import pacman.board.PacmanBoard;
+import pacman.ghost.Blinky;
+import pacman.ghost.Clyde;
+import pacman.ghost.Ghost;
+import pacman.ghost.Inky;
+import pacman.ghost.Pinky;
+import pacman.util.Direction;
+import pacman.util.Position;
+
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how ticks per second scale with the number of threads the ghosts
+ * move on, for a map crowded with ghosts. Not a test, run it by hand:
+ *      java pacman.game.GhostScalingBenchmark [map] [ghosts] [ticks]
+ * The map defaults to maps/game2_big.map with 20000 ghosts for 2000 ticks.
+ * Each run starts from the same game and plays the same hunter moves, so
+ * every run should also finish with the same score.
+ */
+public class GhostScalingBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws Exception {
+        String map = args.length > 0 ? args[0] : "maps/game2_big.map";
+        int ghosts = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        System.out.println("serial: " + run(map, ghosts, ticks, null));
+        for (int threads : THREADS) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                System.out.println(threads + " threads: "
+                        + run(map, ghosts, ticks, pool));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /*
+     * Plays the game once, warming up first, and describes how fast it ran.
+     */
+    private static String run(String map, int ghosts, int ticks,
+            ForkJoinPool pool) throws Exception {
+        PacmanGame game = crowdedGame(map, ghosts);
+        game.setGhostPool(pool);
+        play(game, ticks / 4, new Random(1));
+        game = crowdedGame(map, ghosts);
+        game.setGhostPool(pool);
+        long start = System.nanoTime();
+        play(game, ticks, new Random(1));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return String.format("%.0f ticks/s, score %d", ticks / seconds,
+                game.getScores().getScore());
+    }
+
+    /*
+     * Ticks the game, turning the hunter at random and never running out of
+     * lives.
+     */
+    private static void play(PacmanGame game, int ticks, Random random) {
+        Direction[] directions = Direction.values();
+        for (int i = 0; i < ticks; i++) {
+            if (random.nextInt(6) == 0) {
+                game.getHunter().setDirection(directions[random.nextInt(4)]);
+            }
+            game.tick();
+            game.setLives(4);
+        }
+    }
+
+    /*
+     * Reads the map into a game with the given number of ghosts, one of each
+     * type in turn, spread over the pathable tiles.
+     */
+    private static PacmanGame crowdedGame(String map, int ghosts)
+            throws Exception {
+        PacmanGame read;
+        try (Reader reader = new FileReader(map)) {
+            read = GameReader.read(reader);
+        }
+        List<Ghost> roster = new ArrayList<>();
+        for (int i = 0; i < ghosts; i++) {
+            switch (i % 4) {
+                case 0:
+                    roster.add(new Blinky());
+                    break;
+                case 1:
+                    roster.add(new Inky());
+                    break;
+                case 2:
+                    roster.add(new Pinky());
+                    break;
+                default:
+                    roster.add(new Clyde());
+            }
+        }
+        PacmanGame game = new PacmanGame(read.getTitle(), read.getAuthor(),
+                read.getHunter(), read.getBoard(), roster);
+        Random random = new Random(ghosts);
+        PacmanBoard board = game.getBoard();
+        for (Ghost g : roster) {
+            int x;
+            int y;
+            do {
+                x = random.nextInt(board.getWidth());
+                y = random.nextInt(board.getHeight());
+            } while (!board.isPathable(x, y));
+            g.setPosition(new Position(x, y));
+        }
+        return game;
+    }
+}
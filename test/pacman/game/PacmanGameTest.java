@@ -8,13 +8,20 @@ import pacman.game.PacmanGame;
 import pacman.ghost.*;
 import pacman.hunter.Speedy;
 import pacman.score.ScoreBoard;
+import pacman.util.Direction;
 import pacman.util.Position;
 
+import java.io.FileReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
 
 public class PacmanGameTest {
 
@@ -256,4 +263,357 @@ public class PacmanGameTest {
 
         // TEST FOUR - even tick, ghosts move
     }
+
+    /**
+     * Create a game on a board where the straight-line route from the top
+     * corridor to the hunter is a dead end:
+     *      XXXXXXX
+     *      X00000X
+     *      X0XXXXX
+     *      X$000PX
+     *      XXXXXXX
+     * @return the game with the hunter at (5, 3) and blinky at (3, 1).
+     */
+    private PacmanGame mazeGame() {
+        PacmanBoard mazeBoard = new PacmanBoard(7, 5);
+        for (int x = 2; x < 6; x++) {
+            mazeBoard.setEntry(new Position(x, 2), BoardItem.WALL);
+        }
+        mazeBoard.setEntry(new Position(1, 3), BoardItem.GHOST_SPAWN);
+        mazeBoard.setEntry(new Position(5, 3), BoardItem.PACMAN_SPAWN);
+        mazeBoard.setEntry(new Position(3, 3), BoardItem.DOT);
+        PacmanGame mazeGame = new PacmanGame("maze", "author", new Speedy(),
+                mazeBoard);
+        mazeGame.getHunter().setPosition(new Position(5, 3));
+        Ghost chaser = mazeGame.getGhosts().get(0);
+        chaser.setPosition(new Position(3, 1));
+        chaser.setPhase(Phase.CHASE, 20);
+        return mazeGame;
+    }
+
+    @Test
+    public void mazeChaseOffTest() {
+        // straight line distance heads right into the dead end
+        PacmanGame mazeGame = mazeGame();
+        assertEquals(false, mazeGame.isMazeChase());
+        mazeGame.tick();
+        assertEquals(new Position(4, 1), mazeGame.getGhosts().get(0).getPosition());
+    }
+
+    @Test
+    public void mazeChaseOnTest() {
+        // walking distance goes left, around the wall
+        PacmanGame mazeGame = mazeGame();
+        mazeGame.setMazeChase(true);
+        assertEquals(true, mazeGame.isMazeChase());
+        mazeGame.tick();
+        Ghost chaser = mazeGame.getGhosts().get(0);
+        assertEquals(new Position(2, 1), chaser.getPosition());
+        assertEquals(Direction.LEFT, chaser.getDirection());
+        assertEquals(7, mazeGame.getBoard().getDistance(2, 1));
+        // keeps following the corridor round to the hunter
+        mazeGame.tick();
+        mazeGame.tick();
+        assertEquals(new Position(1, 1), chaser.getPosition());
+        mazeGame.tick();
+        mazeGame.tick();
+        assertEquals(new Position(1, 2), chaser.getPosition());
+    }
+
+    /*
+     * Counts the bytes allocated by this thread while the game ticks.
+     */
+    private long tickAllocations(PacmanGame game, int ticks) {
+        // only HotSpot style JVMs count the bytes each thread allocates
+        assumeTrue(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+        long id = Thread.currentThread().getId();
+        // the call itself may allocate, so measure it with no ticks
+        long start = threads.getThreadAllocatedBytes(id);
+        long overhead = threads.getThreadAllocatedBytes(id) - start;
+        start = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < ticks; i++) {
+            // back and forth along the top row
+            game.getHunter().setDirection(
+                    i % 30 < 15 ? Direction.RIGHT : Direction.LEFT);
+            game.tick();
+            game.setLives(4);
+        }
+        return threads.getThreadAllocatedBytes(id) - start - overhead;
+    }
+
+    @Test
+    public void tickAllocationTest() {
+        // once warmed up moving the hunter and ghosts creates no objects
+        // each tick. The JIT and the JVM's allocation accounting may still add
+        // a little, so allow a few bytes a tick on average over many ticks,
+        // far less than one Position or Direction[] a tick would take
+        PacmanBoard open = new PacmanBoard(20, 12);
+        for (int y = 3; y < 9; y++) {
+            open.setEntry(new Position(6, y), BoardItem.WALL);
+            open.setEntry(new Position(13, y), BoardItem.WALL);
+        }
+        open.setEntry(new Position(10, 10), BoardItem.GHOST_SPAWN);
+        open.setEntry(new Position(2, 1), BoardItem.PACMAN_SPAWN);
+        open.reset();
+        open.setEntry(new Position(9, 1), BoardItem.BIG_DOT);
+        PacmanGame openGame = new PacmanGame("open", "author", new Speedy(),
+                open);
+        openGame.reset();
+        openGame.getHunter().activateSpecial(10);
+        for (boolean mazeChase : new boolean[]{false, true}) {
+            openGame.setMazeChase(mazeChase);
+            tickAllocations(openGame, 20000);
+            int ticks = 20000;
+            long bytes = tickAllocations(openGame, ticks);
+            assertTrue(bytes + " bytes in " + ticks + " ticks",
+                    bytes < 4L * ticks);
+        }
+        assertEquals(false, open.isEmpty());
+    }
+
+    @Test
+    public void rosterConstructorTest() {
+        // any number of ghosts, kept in the order given
+        List<Ghost> roster = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            roster.add(i % 2 == 0 ? new Clyde() : new Pinky());
+        }
+        PacmanGame rosterGame = new PacmanGame("roster", "author",
+                new Speedy(), board, roster);
+        assertEquals(roster, rosterGame.getGhosts());
+        for (Ghost g : rosterGame.getGhosts()) {
+            assertEquals(new Position(1, 1), g.getPosition());
+        }
+        // changing the given list afterwards does not change the game
+        roster.clear();
+        assertEquals(9, rosterGame.getGhosts().size());
+        // no ghosts at all
+        PacmanGame empty = new PacmanGame("roster", "author", new Speedy(),
+                board, new ArrayList<>());
+        assertEquals(0, empty.getGhosts().size());
+        empty.tick();
+        assertEquals(1, empty.getLevel());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void rosterNullTest() {
+        new PacmanGame("roster", "author", new Speedy(), board, null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void rosterNullGhostTest() {
+        List<Ghost> roster = new ArrayList<>();
+        roster.add(new Blinky());
+        roster.add(null);
+        new PacmanGame("roster", "author", new Speedy(), board, roster);
+    }
+
+    @Test
+    public void sharedTileHitTest() {
+        // every ghost on the hunter's tile is hit, including one put into
+        // the list of ghosts directly
+        List<Ghost> roster = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            roster.add(new Blinky());
+        }
+        board.setEntry(new Position(2, 1), BoardItem.DOT);
+        PacmanGame crowded = new PacmanGame("crowded", "author", new Speedy(),
+                board, roster);
+        crowded.getHunter().setPosition(new Position(2, 3));
+        crowded.getHunter().setDirection(Direction.UP);
+        Ghost replacement = new Inky();
+        crowded.getGhosts().set(5, replacement);
+        for (Ghost g : crowded.getGhosts()) {
+            g.setPosition(new Position(2, 2));
+            g.setPhase(Phase.FRIGHTENED, 10);
+        }
+        // one ghost elsewhere is left alone
+        roster.get(4).setPosition(new Position(1, 3));
+        crowded.tick();
+        assertEquals(new Position(2, 2), crowded.getHunter().getPosition());
+        assertEquals(5 * 200, crowded.getScores().getScore());
+        assertEquals(new Position(1, 1), replacement.getPosition());
+        assertEquals(Phase.SCATTER, replacement.getPhase());
+        assertEquals(Phase.FRIGHTENED, roster.get(4).getPhase());
+        assertEquals(false, crowded.getHunter().isDead());
+    }
+
+    /*
+     * Ticks the game the way it was done before the occupancy grid, hitting
+     * each ghost in turn before and after it moves, using only public methods.
+     * Maze chasing must be off.
+     * @return the tick count after the tick
+     */
+    private int referenceTick(PacmanGame game, int tick) {
+        if (game.getLives() == 0) {
+            return tick;
+        }
+        PacmanBoard gameBoard = game.getBoard();
+        game.getHunter().move(game);
+        for (Ghost g : game.getGhosts()) {
+            game.getHunter().hit(g);
+            if (!g.isDead() && tick % 2 == 0) {
+                g.move(game);
+            }
+            game.getHunter().hit(g);
+            if (g.isDead()) {
+                g.reset();
+                g.setPosition(gameBoard.getGhostSpawn());
+                game.getScores().increaseScore(200);
+            }
+        }
+        if (game.getHunter().isDead()) {
+            game.setLives(game.getLives() - 1);
+            referenceReset(game);
+        }
+        if (gameBoard.isEmpty()) {
+            game.setLevel(game.getLevel() + 1);
+            gameBoard.reset();
+            referenceReset(game);
+            return 0;
+        }
+        return tick + 1;
+    }
+
+    /*
+     * Puts the ghosts and hunter back at their spawns, as the game does.
+     */
+    private void referenceReset(PacmanGame game) {
+        for (Ghost g : game.getGhosts()) {
+            g.reset();
+            g.setPosition(game.getBoard().getGhostSpawn());
+        }
+        game.getHunter().reset();
+        game.getHunter().setPosition(game.getBoard().getPacmanSpawn());
+    }
+
+    /*
+     * Reads a bundled map into a game with a large mixed roster, every ghost
+     * started on a pathable tile chosen by the seed.
+     */
+    private PacmanGame crowdedGame(String map, int ghosts, long seed)
+            throws Exception {
+        PacmanGame read;
+        try (Reader reader = new FileReader("maps/" + map)) {
+            read = GameReader.read(reader);
+        }
+        List<Ghost> roster = new ArrayList<>();
+        for (int i = 0; i < ghosts; i++) {
+            switch (i % 4) {
+                case 0:
+                    roster.add(new Blinky());
+                    break;
+                case 1:
+                    roster.add(new Inky());
+                    break;
+                case 2:
+                    roster.add(new Pinky());
+                    break;
+                default:
+                    roster.add(new Clyde());
+            }
+        }
+        PacmanGame crowded = new PacmanGame(read.getTitle(), read.getAuthor(),
+                read.getHunter(), read.getBoard(), roster);
+        Random random = new Random(seed);
+        PacmanBoard crowdedBoard = crowded.getBoard();
+        for (Ghost g : roster) {
+            int x;
+            int y;
+            do {
+                x = random.nextInt(crowdedBoard.getWidth());
+                y = random.nextInt(crowdedBoard.getHeight());
+            } while (!crowdedBoard.isPathable(x, y));
+            g.setPosition(new Position(x, y));
+        }
+        return crowded;
+    }
+
+    @Test
+    public void occupancyTickTest() throws Exception {
+        // hitting only the ghosts on the hunter's tile plays exactly as
+        // hitting every ghost before and after it moves
+        String[] maps = {"game1_default.map", "game2_big.map",
+                "game3_small.map", "game4_demo.map"};
+        for (int m = 0; m < maps.length; m++) {
+            PacmanGame crowded = crowdedGame(maps[m], 64, 41 + m);
+            PacmanGame reference = crowdedGame(maps[m], 64, 41 + m);
+            Random random = new Random(m);
+            Direction[] directions = Direction.values();
+            int tick = 0;
+            for (int i = 0; i < 3000; i++) {
+                if (random.nextInt(6) == 0) {
+                    Direction turn = directions[random.nextInt(4)];
+                    crowded.getHunter().setDirection(turn);
+                    reference.getHunter().setDirection(turn);
+                }
+                if (random.nextInt(40) == 0) {
+                    crowded.setGhostsFrightened();
+                    reference.setGhostsFrightened();
+                }
+                crowded.tick();
+                tick = referenceTick(reference, tick);
+                String where = maps[m] + " tick " + i;
+                assertEquals(where, reference.getGhosts().toString(),
+                        crowded.getGhosts().toString());
+                assertEquals(where, reference.getHunter().toString(),
+                        crowded.getHunter().toString());
+                assertEquals(where, reference.getScores().getScore(),
+                        crowded.getScores().getScore());
+                assertEquals(where, reference.getLives(), crowded.getLives());
+                assertEquals(where, reference.getLevel(), crowded.getLevel());
+                assertEquals(where, tick, crowded.getTick());
+                crowded.setLives(4);
+                reference.setLives(4);
+            }
+            assertTrue(maps[m], crowded.getScores().getScore() > 0);
+        }
+    }
+
+    @Test
+    public void parallelTickTest() throws Exception {
+        // moving the ghosts on a pool plays exactly as moving them in turn
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (boolean mazeChase : new boolean[]{false, true}) {
+                PacmanGame serial = crowdedGame("game2_big.map", 2000, 5);
+                PacmanGame parallel = crowdedGame("game2_big.map", 2000, 5);
+                parallel.setGhostPool(pool);
+                assertEquals(pool, parallel.getGhostPool());
+                serial.setMazeChase(mazeChase);
+                parallel.setMazeChase(mazeChase);
+                Random random = new Random(3);
+                Direction[] directions = Direction.values();
+                for (int i = 0; i < 400; i++) {
+                    if (random.nextInt(6) == 0) {
+                        Direction turn = directions[random.nextInt(4)];
+                        serial.getHunter().setDirection(turn);
+                        parallel.getHunter().setDirection(turn);
+                    }
+                    if (random.nextInt(40) == 0) {
+                        serial.setGhostsFrightened();
+                        parallel.setGhostsFrightened();
+                    }
+                    serial.tick();
+                    parallel.tick();
+                    String where = "maze " + mazeChase + " tick " + i;
+                    assertEquals(where, serial.getGhosts().toString(),
+                            parallel.getGhosts().toString());
+                    assertEquals(where, serial.getHunter().toString(),
+                            parallel.getHunter().toString());
+                    assertEquals(where, serial.getScores().getScore(),
+                            parallel.getScores().getScore());
+                    assertEquals(where, serial.getLives(), parallel.getLives());
+                    serial.setLives(4);
+                    parallel.setLives(4);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
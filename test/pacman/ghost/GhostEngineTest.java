@@ -0,0 +1,336 @@
+package pacman.ghost;
+
+import org.junit.Before;
+import org.junit.Test;
+import pacman.board.BoardItem;
+import pacman.board.PacmanBoard;
+import pacman.game.PacmanGame;
+import pacman.hunter.Speedy;
+import pacman.util.Direction;
+import pacman.util.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GhostEngineTest {
+    private PacmanBoard board;
+    private PacmanGame game;
+
+    @Before
+    public void setUp() {
+        board = new PacmanBoard(12, 9);
+        for (int y = 2; y < 7; y++) {
+            board.setEntry(new Position(5, y), BoardItem.WALL);
+        }
+        board.setEntry(new Position(1, 1), BoardItem.PACMAN_SPAWN);
+        board.setEntry(new Position(9, 6), BoardItem.GHOST_SPAWN);
+        game = new PacmanGame("engine", "author", new Speedy(), board);
+    }
+
+    /*
+     * A ghost that is not one of the four built in kinds, chasing a fixed
+     * tile.
+     */
+    private static class Lurker extends Ghost {
+        @Override
+        public String getColour() {
+            return "#000000";
+        }
+
+        @Override
+        public GhostType getType() {
+            return GhostType.BLINKY;
+        }
+
+        @Override
+        public Position home(PacmanGame game) {
+            return new Position(0, 8);
+        }
+
+        @Override
+        public Position chaseTarget(PacmanGame game) {
+            return new Position(11, 0);
+        }
+    }
+
+    @Test
+    public void newGhostTest() {
+        // a ghost on its own holds its own state, with no engine
+        Ghost ghost = new Pinky();
+        assertNull(ghost.engine);
+        assertEquals("0,0,UP,SCATTER:10", ghost.toString());
+        ghost.setPosition(new Position(3, 4));
+        ghost.setDirection(Direction.LEFT);
+        ghost.setPhase(Phase.CHASE, 7);
+        ghost.kill();
+        assertEquals("3,4,LEFT,CHASE:7", ghost.toString());
+        assertEquals(true, ghost.isDead());
+        ghost.reset();
+        assertEquals("0,0,UP,SCATTER:10", ghost.toString());
+        assertEquals(false, ghost.isDead());
+        assertNull(ghost.engine);
+    }
+
+    @Test
+    public void adoptTest() {
+        // an engine takes on the state a ghost held itself
+        Ghost ghost = new Clyde();
+        ghost.setPosition(new Position(2, 3));
+        ghost.setDirection(Direction.DOWN);
+        ghost.setPhase(Phase.FRIGHTENED, 6);
+        ghost.kill();
+        GhostEngine engine = new GhostEngine();
+        engine.update(Arrays.asList(ghost));
+        assertSame(engine, ghost.engine);
+        assertEquals("2,3,DOWN,FRIGHTENED:6", ghost.toString());
+        assertEquals(true, ghost.isDead());
+        // moving a ghost on its own gives it an engine
+        Ghost alone = new Blinky();
+        alone.setPosition(new Position(2, 1));
+        alone.move(game);
+        assertNotNull(alone.engine);
+        assertEquals("3,1,RIGHT,SCATTER:9", alone.toString());
+    }
+
+    @Test
+    public void updateKeepsStateTest() {
+        // ghosts bring their state with them however the roster changes
+        List<Ghost> roster = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Ghost ghost = i % 2 == 0 ? new Blinky() : new Clyde();
+            ghost.setPosition(new Position(i, i + 1));
+            ghost.setPhase(Phase.FRIGHTENED, i);
+            roster.add(ghost);
+        }
+        roster.get(3).kill();
+        List<String> before = new ArrayList<>();
+        for (Ghost ghost : roster) {
+            before.add(ghost.toString() + ghost.isDead());
+        }
+
+        GhostEngine engine = new GhostEngine();
+        engine.update(roster);
+        // swapped within the roster
+        Ghost first = roster.get(0);
+        roster.set(0, roster.get(4));
+        roster.set(4, first);
+        engine.update(roster);
+        // and taken into another engine
+        GhostEngine other = new GhostEngine();
+        other.update(roster.subList(1, 3));
+        engine.update(roster);
+
+        List<String> after = new ArrayList<>();
+        for (Ghost ghost : Arrays.asList(roster.get(4), roster.get(1),
+                roster.get(2), roster.get(3), roster.get(0))) {
+            after.add(ghost.toString() + ghost.isDead());
+        }
+        assertEquals(before, after);
+    }
+
+    @Test
+    public void viewTest() {
+        // changes through a ghost are what the engine moves from
+        GhostEngine engine = new GhostEngine();
+        Ghost ghost = new Blinky();
+        engine.update(Arrays.asList(ghost));
+        ghost.setPosition(new Position(2, 1));
+        ghost.setDirection(Direction.RIGHT);
+        ghost.setPhase(Phase.CHASE, 5);
+        game.getHunter().setPosition(new Position(4, 1));
+        engine.moveAll(game);
+        assertEquals("3,1,RIGHT,CHASE:4", ghost.toString());
+        assertEquals(new Position(3, 1), ghost.getPosition());
+        // dead ghosts are left where they are
+        ghost.kill();
+        engine.moveAll(game);
+        assertEquals("3,1,RIGHT,CHASE:4", ghost.toString());
+    }
+
+    @Test
+    public void customGhostTest() {
+        // ghosts of other classes are asked for their own targets
+        Ghost lurker = new Lurker();
+        Ghost blinky = new Blinky();
+        GhostEngine engine = new GhostEngine();
+        engine.update(Arrays.asList(lurker, blinky));
+        for (Ghost ghost : Arrays.asList(lurker, blinky)) {
+            ghost.setPosition(new Position(3, 3));
+            ghost.setDirection(Direction.LEFT);
+            ghost.setPhase(Phase.CHASE, 5);
+        }
+        game.getHunter().setPosition(new Position(1, 7));
+        engine.moveAll(game);
+        assertEquals("3,2,UP,CHASE:4", lurker.toString());
+        assertEquals("3,4,DOWN,CHASE:4", blinky.toString());
+        lurker.setPhase(Phase.SCATTER, 5);
+        engine.moveAll(game);
+        assertEquals("2,2,LEFT,SCATTER:4", lurker.toString());
+    }
+
+    @Test
+    public void moveAllTest() {
+        // moving the whole roster at once is the same as moving each ghost
+        // on its own, for every phase and kind of ghost
+        Random random = new Random(11);
+        List<Ghost> together = new ArrayList<>();
+        List<Ghost> alone = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Ghost[] pair = i % 5 == 4
+                    ? new Ghost[] {new Lurker(), new Lurker()}
+                    : i % 5 == 3 ? new Ghost[] {new Clyde(), new Clyde()}
+                    : i % 5 == 2 ? new Ghost[] {new Pinky(), new Pinky()}
+                    : i % 5 == 1 ? new Ghost[] {new Inky(), new Inky()}
+                    : new Ghost[] {new Blinky(), new Blinky()};
+            int x;
+            int y;
+            do {
+                x = random.nextInt(board.getWidth());
+                y = random.nextInt(board.getHeight());
+            } while (!board.isPathable(x, y));
+            Phase phase = Phase.values()[random.nextInt(3)];
+            int duration = random.nextInt(4);
+            for (Ghost ghost : pair) {
+                ghost.setPosition(new Position(x, y));
+                ghost.setPhase(phase, duration);
+            }
+            together.add(pair[0]);
+            alone.add(pair[1]);
+        }
+        GhostEngine engine = new GhostEngine();
+        engine.update(together);
+        Direction[] directions = Direction.values();
+        for (int tick = 0; tick < 300; tick++) {
+            if (random.nextInt(5) == 0) {
+                game.getHunter().setDirection(directions[random.nextInt(4)]);
+                game.getHunter().move(game);
+            }
+            engine.moveAll(game);
+            for (Ghost ghost : alone) {
+                ghost.move(game);
+            }
+            assertEquals("tick " + tick, alone.toString(), together.toString());
+        }
+    }
+
+    @Test
+    public void sharedTimerTest() {
+        // ghosts with the same phase and time left share one timer
+        List<Ghost> roster = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            roster.add(i % 2 == 0 ? new Blinky() : new Pinky());
+        }
+        GhostEngine engine = new GhostEngine();
+        engine.update(roster);
+        assertEquals(1, engine.timerCount());
+        roster.get(4).setPhase(Phase.CHASE, 3);
+        roster.get(7).setPhase(Phase.CHASE, 3);
+        assertEquals(2, engine.timerCount());
+        engine.setAllPhases(Phase.FRIGHTENED, 2);
+        assertEquals(1, engine.timerCount());
+        for (int tick = 0; tick < 3; tick++) {
+            engine.moveAll(game);
+        }
+        assertEquals(1, engine.timerCount());
+        for (Ghost ghost : roster) {
+            assertEquals("CHASE:19", ghost.phaseInfo());
+        }
+        // a dead ghost keeps its time while the others move on
+        roster.get(0).kill();
+        engine.moveAll(game);
+        assertEquals("CHASE:19", roster.get(0).phaseInfo());
+        assertEquals("CHASE:18", roster.get(1).phaseInfo());
+        assertEquals(2, engine.timerCount());
+    }
+
+    @Test
+    public void holdZeroDurationTest() {
+        // a dead ghost with no time left keeps its phase while the others
+        // move, even next to a ghost whose phase changes on that step
+        Ghost held = new Blinky();
+        Ghost moving = new Blinky();
+        GhostEngine engine = new GhostEngine();
+        engine.update(Arrays.asList(held, moving));
+        held.setPhase(Phase.CHASE, 0);
+        moving.setPhase(Phase.CHASE, 1);
+        held.kill();
+        engine.moveAll(game);
+        assertEquals("CHASE:0", held.phaseInfo());
+        assertEquals("SCATTER:10", moving.phaseInfo());
+        engine.moveAll(game);
+        assertEquals("CHASE:0", held.phaseInfo());
+        assertEquals("SCATTER:9", moving.phaseInfo());
+        // and changes on the first step it moves for
+        held.setPosition(new Position(1, 1));
+        held.move(game);
+        assertEquals("SCATTER:10", held.phaseInfo());
+        assertEquals("SCATTER:9", moving.phaseInfo());
+    }
+
+    @Test
+    public void phaseScheduleTest() {
+        // the shared timers change phase exactly when each ghost counting
+        // down on its own does, whatever is done to the ghosts in between
+        Random random = new Random(23);
+        List<Ghost> together = new ArrayList<>();
+        List<Ghost> alone = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            together.add(i % 2 == 0 ? new Inky() : new Clyde());
+            alone.add(i % 2 == 0 ? new Inky() : new Clyde());
+        }
+        GhostEngine engine = new GhostEngine();
+        engine.update(together);
+        for (int tick = 0; tick < 400; tick++) {
+            int i = random.nextInt(together.size());
+            switch (random.nextInt(8)) {
+                case 0:
+                    together.get(i).kill();
+                    alone.get(i).kill();
+                    break;
+                case 1:
+                    together.get(i).reset();
+                    alone.get(i).reset();
+                    break;
+                case 2:
+                    Phase phase = random.nextBoolean() ? null
+                            : Phase.values()[random.nextInt(3)];
+                    int duration = random.nextInt(25) - 2;
+                    together.get(i).setPhase(phase, duration);
+                    alone.get(i).setPhase(phase, duration);
+                    break;
+                case 3:
+                    if (random.nextInt(10) == 0) {
+                        engine.setAllPhases(Phase.FRIGHTENED, 15);
+                        for (Ghost ghost : alone) {
+                            ghost.setPhase(Phase.FRIGHTENED, 15);
+                        }
+                    }
+                    break;
+                case 4:
+                    // a ghost moved on its own out of step with the rest
+                    together.get(i).move(game);
+                    alone.get(i).move(game);
+                    break;
+                default:
+                    break;
+            }
+            engine.moveAll(game);
+            for (Ghost ghost : alone) {
+                if (!ghost.isDead()) {
+                    ghost.move(game);
+                }
+            }
+            for (int j = 0; j < alone.size(); j++) {
+                assertEquals("tick " + tick + " ghost " + j,
+                        alone.get(j).phaseInfo(),
+                        together.get(j).phaseInfo());
+                assertEquals(alone.get(j).getPhase(),
+                        together.get(j).getPhase());
+            }
+        }
+    }
+}
@@ -5,13 +5,18 @@ import org.junit.Before;
 import org.junit.Test;
 import pacman.board.BoardItem;
 import pacman.board.PacmanBoard;
+import pacman.game.GameReader;
 import pacman.game.PacmanGame;
 import pacman.hunter.Hunter;
 import pacman.hunter.Speedy;
 import pacman.util.Direction;
 import pacman.util.Position;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.Reader;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -546,6 +551,229 @@ public class GhostTest {
         assertEquals(new Position(8,11), clyde.chaseTarget(game));
     }
 
+    /*
+     * Replays the hunter turns recorded for a map under
+     * test/pacman/ghost/baseline, checking the ghosts are where they were
+     * after every tick when the game compared Euclidean distances. Returns
+     * the number of ticks checked.
+     */
+    private int checkBaseline(String map) throws Exception {
+        PacmanGame mapGame;
+        try (Reader reader = new FileReader("maps/" + map + ".map")) {
+            mapGame = GameReader.read(reader);
+        }
+        int tick = 0;
+        try (BufferedReader recorded = new BufferedReader(new FileReader(
+                "test/pacman/ghost/baseline/" + map + ".txt"))) {
+            for (String line = recorded.readLine(); line != null;
+                    line = recorded.readLine()) {
+                if (line.startsWith(";")) {
+                    continue;
+                }
+                int turn = "UDLR".indexOf(line.charAt(0));
+                if (turn >= 0) {
+                    mapGame.getHunter().setDirection(new Direction[]{
+                            Direction.UP, Direction.DOWN, Direction.LEFT,
+                            Direction.RIGHT}[turn]);
+                }
+                mapGame.tick();
+                mapGame.setLives(4);
+
+                StringBuilder ghosts = new StringBuilder();
+                ghosts.append(line.charAt(0));
+                for (Ghost g : mapGame.getGhosts()) {
+                    ghosts.append(' ').append(g.getPosition().getX())
+                            .append(',').append(g.getPosition().getY());
+                }
+                assertEquals(map + " tick " + tick, line, ghosts.toString());
+                tick++;
+            }
+        }
+        return tick;
+    }
+
+    @Test
+    public void squaredDistanceMapsTest() throws Exception {
+        // comparing squared distances chooses exactly as Euclidean distance
+        for (String map : new String[]{"game1_default", "game2_big",
+                "game3_small", "game4_demo"}) {
+            assertEquals(map, 2000, checkBaseline(map));
+        }
+    }
+
+    /*
+     * The direction a ghost at (x, y) facing facing picks for target the way
+     * it did before forced moves were taken without a target, comparing
+     * every direction it can go. With maze chase the walking distances of
+     * the board are compared first. Null if no direction can be taken.
+     */
+    private Direction referenceChoice(PacmanGame game, int x, int y,
+            Direction facing, Phase phase, Position target) {
+        PacmanBoard board = game.getBoard();
+        Direction[] directions = {Direction.RIGHT, Direction.DOWN,
+                Direction.LEFT, Direction.UP};
+        Direction chosen = null;
+        if (game.isMazeChase() && phase != Phase.FRIGHTENED) {
+            boolean hunter = target.equals(game.getHunter().getPosition());
+            int smallest = Integer.MAX_VALUE;
+            for (Direction d : directions) {
+                int nextX = x + d.getX();
+                int nextY = y + d.getY();
+                if (!board.isPathable(nextX, nextY) || d == facing.opposite()) {
+                    continue;
+                }
+                int distance = hunter ? board.getDistance(nextX, nextY)
+                        : board.getMazeDistance(target.getX(), target.getY(),
+                        nextX, nextY);
+                if (distance >= 0 && distance <= smallest) {
+                    smallest = distance;
+                    chosen = d;
+                }
+            }
+            if (chosen != null) {
+                return chosen;
+            }
+        }
+        long smallest = Long.MAX_VALUE;
+        for (Direction d : directions) {
+            long dx = x + d.getX() - target.getX();
+            long dy = y + d.getY() - target.getY();
+            if (dx * dx + dy * dy <= smallest
+                    && board.isPathable(x + d.getX(), y + d.getY())
+                    && d != facing.opposite()) {
+                smallest = dx * dx + dy * dy;
+                chosen = d;
+            }
+        }
+        return chosen;
+    }
+
+    /*
+     * Plays a long game on a map with the hunter turning at random, checking
+     * every ghost move against the reference choice. Returns the number of
+     * ghost moves that were checked in a corridor, where only one way on can
+     * be taken.
+     */
+    private int checkReference(String map, boolean mazeChase, long seed)
+            throws Exception {
+        PacmanGame mapGame;
+        try (Reader reader = new FileReader("maps/" + map)) {
+            mapGame = GameReader.read(reader);
+        }
+        mapGame.setMazeChase(mazeChase);
+        PacmanBoard mapBoard = mapGame.getBoard();
+        Hunter hunter = mapGame.getHunter();
+        Random random = new Random(seed);
+        Direction[] directions = Direction.values();
+        int corridors = 0;
+        for (int tick = 0; tick < 5000; tick++) {
+            if (random.nextInt(6) == 0) {
+                hunter.setDirection(directions[random.nextInt(4)]);
+            }
+            hunter.move(mapGame);
+            if (mapBoard.isEmpty()) {
+                mapBoard.reset();
+            }
+            if (mazeChase) {
+                mapBoard.updateDistances(hunter.getPosition().getX(),
+                        hunter.getPosition().getY());
+            }
+            for (Ghost g : mapGame.getGhosts()) {
+                Position before = g.getPosition();
+                Direction facing = g.getDirection();
+                g.move(mapGame);
+                Position after = g.getPosition();
+                Direction moved = g.getDirection();
+
+                // work out the target from where the ghost was
+                g.setPosition(before);
+                g.setDirection(facing);
+                Position target;
+                switch (g.getPhase()) {
+                    case CHASE:
+                        target = g.chaseTarget(mapGame);
+                        break;
+                    case SCATTER:
+                        target = g.home(mapGame);
+                        break;
+                    default:
+                        int width = mapBoard.getWidth();
+                        int height = mapBoard.getHeight();
+                        target = new Position(
+                                before.getX() * 24 % (2 * width) - width,
+                                before.getY() * 36 % (2 * height) - height);
+                }
+                g.setPosition(after);
+                g.setDirection(moved);
+
+                String where = map + " maze " + mazeChase + " tick " + tick;
+                Direction expected = referenceChoice(mapGame, before.getX(),
+                        before.getY(), facing, g.getPhase(), target);
+                if (expected == null) {
+                    assertEquals(where, before, after);
+                    assertEquals(where, facing, moved);
+                } else {
+                    assertEquals(where, expected, moved);
+                    assertEquals(where, new Position(
+                            before.getX() + expected.getX(),
+                            before.getY() + expected.getY()), after);
+                }
+                if (Integer.bitCount(mapBoard.getNeighbours(before.getX(),
+                        before.getY()) & ~facing.opposite().mask()) <= 1) {
+                    corridors++;
+                }
+            }
+        }
+        return corridors;
+    }
+
+    @Test
+    public void forcedMovesReferenceTest() throws Exception {
+        String[] maps = {"game1_default.map", "game2_big.map",
+                "game3_small.map", "game4_demo.map"};
+        for (int i = 0; i < maps.length; i++) {
+            assertTrue(maps[i], checkReference(maps[i], false, 2019 + i) > 0);
+            assertTrue(maps[i], checkReference(maps[i], true, 2019 + i) > 0);
+        }
+    }
+
+    @Test
+    public void forcedMoveTest() {
+        // in a corridor the only way on is taken whatever the target
+        PacmanBoard corridor = new PacmanBoard(7, 3);
+        corridor.setEntry(new Position(1, 1), BoardItem.PACMAN_SPAWN);
+        corridor.setEntry(new Position(5, 1), BoardItem.GHOST_SPAWN);
+        PacmanGame corridorGame = new PacmanGame("corridor", "author",
+                new Speedy(), corridor);
+        Ghost chaser = corridorGame.getGhosts().get(0);
+        chaser.setPosition(new Position(3, 1));
+        chaser.setDirection(Direction.RIGHT);
+        chaser.setPhase(Phase.CHASE, 20);
+        chaser.move(corridorGame);
+        assertEquals(new Position(4, 1), chaser.getPosition());
+        assertEquals(Direction.RIGHT, chaser.getDirection());
+        // a dead end with no way on but back stays put
+        chaser.setPosition(new Position(5, 1));
+        chaser.move(corridorGame);
+        assertEquals(new Position(5, 1), chaser.getPosition());
+        assertEquals(Direction.RIGHT, chaser.getDirection());
+    }
+
+    @Test
+    public void distanceSquaredTest() {
+        Position from = new Position(-1, 2);
+        Position to = new Position(3, -1);
+        assertEquals(25, from.distanceSquared(to));
+        assertEquals(25, to.distanceSquared(from));
+        assertEquals(0, from.distanceSquared(from));
+        assertEquals(25, Position.distanceSquared(from.pack(), to.pack()));
+        // differences wider than an int do not overflow
+        Position far = new Position(Integer.MIN_VALUE, 0);
+        Position near = new Position(1, 0);
+        assertEquals((1L << 31) + 1, Math.round(
+                Math.sqrt(far.distanceSquared(near))));
+    }
+
     @After
     public void tearDown() throws Exception {
     }
@@ -0,0 +1,65 @@
+package pacman.ghost;
+
+import org.junit.Test;
+import pacman.board.BoardItem;
+import pacman.board.PacmanBoard;
+import pacman.game.PacmanGame;
+import pacman.hunter.Speedy;
+import pacman.util.Position;
+
+import static org.junit.Assert.*;
+
+public class TargetTableTest {
+
+    /*
+     * Creates a game on an empty board of the given size.
+     */
+    private static PacmanGame game(int width, int height) {
+        PacmanBoard board = new PacmanBoard(width, height);
+        board.setEntry(new Position(1, 1), BoardItem.PACMAN_SPAWN);
+        board.setEntry(new Position(width - 2, height - 2),
+                BoardItem.GHOST_SPAWN);
+        return new PacmanGame("targets", "author", new Speedy(), board);
+    }
+
+    @Test
+    public void frightenedTest() {
+        // every tile, and tiles just off the board, match the formula
+        for (int[] size : new int[][] {{4, 4}, {12, 9}, {31, 17}}) {
+            int width = size[0];
+            int height = size[1];
+            TargetTable table = new TargetTable(game(width, height));
+            for (int y = -2; y < height + 2; y++) {
+                for (int x = -2; x < width + 2; x++) {
+                    long expected = Position.pack(
+                            ((x * 24) % (2 * width)) - width,
+                            ((y * 36) % (2 * height)) - height);
+                    assertEquals(x + "," + y, expected,
+                            table.frightened(Position.pack(x, y)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void homeTest() {
+        PacmanGame game = game(12, 9);
+        TargetTable table = new TargetTable(game);
+        assertEquals(new Blinky().packedHome(game),
+                table.home(GhostType.BLINKY.ordinal()));
+        assertEquals(new Inky().packedHome(game),
+                table.home(GhostType.INKY.ordinal()));
+        assertEquals(new Pinky().packedHome(game),
+                table.home(GhostType.PINKY.ordinal()));
+        assertEquals(new Clyde().packedHome(game),
+                table.home(GhostType.CLYDE.ordinal()));
+    }
+
+    @Test
+    public void fitsTest() {
+        TargetTable table = new TargetTable(game(12, 9));
+        assertTrue(table.fits(new PacmanBoard(12, 9)));
+        assertFalse(table.fits(new PacmanBoard(9, 12)));
+        assertFalse(table.fits(new PacmanBoard(12, 10)));
+    }
+}
@@ -0,0 +1,129 @@
+package pacman.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PositionMapTest {
+    private PositionMap map;
+
+    @Before
+    public void setUp() throws Exception {
+        map = new PositionMap();
+    }
+
+    @Test
+    public void emptyTest() {
+        assertEquals(0, map.size());
+        assertEquals(true, map.isEmpty());
+        assertEquals(false, map.containsKey(Position.pack(0, 0)));
+        assertEquals(-1, map.get(Position.pack(0, 0), -1));
+        assertEquals(false, map.remove(Position.pack(0, 0)));
+        assertEquals(0, map.keys().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeExpectedTest() {
+        new PositionMap(-1);
+    }
+
+    @Test
+    public void putGetTest() {
+        // row 0 and column 0 all hash to zero with Position.hashCode()
+        for (int i = 0; i < 100; i++) {
+            map.put(Position.pack(i, 0), i);
+            map.put(Position.pack(0, i + 1), -i);
+        }
+        assertEquals(200, map.size());
+        assertEquals(false, map.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, map.get(Position.pack(i, 0), -1));
+            assertEquals(-i, map.get(Position.pack(0, i + 1), -1));
+        }
+        map.put(Position.pack(5, 0), 50);
+        assertEquals(50, map.get(Position.pack(5, 0), -1));
+        assertEquals(200, map.size());
+    }
+
+    @Test
+    public void addTest() {
+        long key = Position.pack(-3, 4);
+        assertEquals(2, map.add(key, 2));
+        assertEquals(5, map.add(key, 3));
+        assertEquals(5, map.get(key, 0));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void emptyKeyTest() {
+        // the key used to mark empty slots is still a valid position
+        long key = Position.pack(Integer.MIN_VALUE, 0);
+        assertEquals(false, map.containsKey(key));
+        map.put(key, 7);
+        assertEquals(true, map.containsKey(key));
+        assertEquals(7, map.get(key, 0));
+        assertEquals(8, map.add(key, 1));
+        assertEquals(1, map.size());
+        assertArrayEquals(new long[]{key}, map.keys());
+        assertEquals(true, map.remove(key));
+        assertEquals(false, map.remove(key));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void clearTest() {
+        for (int i = 0; i < 50; i++) {
+            map.put(Position.pack(i, i), i);
+        }
+        map.put(Position.pack(Integer.MIN_VALUE, 0), 1);
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(false, map.containsKey(Position.pack(3, 3)));
+        map.put(Position.pack(3, 3), 9);
+        assertEquals(9, map.get(Position.pack(3, 3), 0));
+    }
+
+    @Test
+    public void randomEditsTest() {
+        // agrees with a HashMap through growth and removals
+        Random random = new Random(18);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            long key = Position.pack(random.nextInt(300) - 150,
+                    random.nextInt(300) - 150);
+            switch (random.nextInt(4)) {
+                case 0:
+                    map.put(key, i);
+                    expected.put(key, i);
+                    break;
+                case 1:
+                    expected.merge(key, 3, Integer::sum);
+                    assertEquals((int) expected.get(key), map.add(key, 3));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.containsKey(key),
+                            map.containsKey(key));
+                    assertEquals((int) expected.getOrDefault(key, -1),
+                            map.get(key, -1));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        long[] expectedKeys = expected.keySet().stream()
+                .mapToLong(Long::longValue).sorted().toArray();
+        assertArrayEquals(expectedKeys, keys);
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey(), -1));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package pacman.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PositionSetTest {
+    private PositionSet set;
+
+    @Before
+    public void setUp() throws Exception {
+        set = new PositionSet();
+    }
+
+    @Test
+    public void emptyTest() {
+        assertEquals(0, set.size());
+        assertEquals(true, set.isEmpty());
+        assertEquals(false, set.contains(Position.pack(0, 0)));
+        assertEquals(false, set.remove(Position.pack(0, 0)));
+        assertEquals(0, set.toArray().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeExpectedTest() {
+        new PositionSet(-1);
+    }
+
+    @Test
+    public void addContainsTest() {
+        assertEquals(true, set.add(Position.pack(0, 0)));
+        assertEquals(false, set.add(Position.pack(0, 0)));
+        assertEquals(true, set.add(Position.pack(-1, -1)));
+        assertEquals(true, set.contains(Position.pack(-1, -1)));
+        assertEquals(false, set.contains(Position.pack(1, 1)));
+        assertEquals(2, set.size());
+        assertEquals(false, set.isEmpty());
+    }
+
+    @Test
+    public void emptyKeyTest() {
+        // the key used to mark empty slots is still a valid position
+        long key = Position.pack(Integer.MIN_VALUE, 0);
+        assertEquals(false, set.contains(key));
+        assertEquals(true, set.add(key));
+        assertEquals(false, set.add(key));
+        assertEquals(true, set.contains(key));
+        assertArrayEquals(new long[]{key}, set.toArray());
+        assertEquals(true, set.remove(key));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void clearTest() {
+        for (int i = 0; i < 50; i++) {
+            set.add(Position.pack(i, 0));
+        }
+        set.clear();
+        assertEquals(0, set.size());
+        assertEquals(false, set.contains(Position.pack(3, 0)));
+        assertEquals(true, set.add(Position.pack(3, 0)));
+    }
+
+    @Test
+    public void randomEditsTest() {
+        // agrees with a HashSet through growth and removals
+        Random random = new Random(18);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 200000; i++) {
+            long key = Position.pack(random.nextInt(300) - 150,
+                    random.nextInt(300) - 150);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.add(key), set.add(key));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), set.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.contains(key), set.contains(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        long[] keys = set.toArray();
+        Arrays.sort(keys);
+        long[] expectedKeys = expected.stream()
+                .mapToLong(Long::longValue).sorted().toArray();
+        assertArrayEquals(expectedKeys, keys);
+    }
+}